@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Compares startup time and peak resident memory of the plain jar against the fast-start build.
+# Each launch stops right after the Spring context refreshes, so no browser is started.
+#
+#   mvn -Pfast-start package
+#   scripts/measure-startup.sh [plain-jar] [runs]
+set -euo pipefail
+
+JAR_NAME=amazon_gain_list-0.0.1-SNAPSHOT.jar
+PLAIN_JAR=${1:-target/$JAR_NAME}
+RUNS=${2:-5}
+FAST_DIR=target/fast-start
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+# Prints "<wall ms> <peak RSS kB>" for one launch
+measure() {
+    local start end pid peak=0 hwm
+    start=$(date +%s%N)
+    "$JAVA" -Dspring.context.exit=onRefresh -Dspring.main.banner-mode=off "$@" >/dev/null 2>&1 &
+    pid=$!
+    while kill -0 "$pid" 2>/dev/null; do
+        hwm=$(awk '/VmHWM/ {print $2}' "/proc/$pid/status" 2>/dev/null || true)
+        if [[ -n "$hwm" && "$hwm" -gt "$peak" ]]; then
+            peak=$hwm
+        fi
+        sleep 0.02
+    done
+    wait "$pid" || true
+    end=$(date +%s%N)
+    echo "$(( (end - start) / 1000000 )) $peak"
+}
+
+# Prints the median wall time and peak RSS of several launches
+report() {
+    local label=$1
+    shift
+    local times=() rss=()
+    for _ in $(seq "$RUNS"); do
+        read -r t r < <(measure "$@")
+        times+=("$t")
+        rss+=("$r")
+    done
+    local mid=$(( RUNS / 2 ))
+    local t_med r_med
+    t_med=$(printf '%s\n' "${times[@]}" | sort -n | sed -n "$((mid + 1))p")
+    r_med=$(printf '%s\n' "${rss[@]}" | sort -n | sed -n "$((mid + 1))p")
+    printf '%-12s median startup %6d ms   median peak RSS %7d kB   (%d runs)\n' "$label" "$t_med" "$r_med" "$RUNS"
+}
+
+report "plain" -jar "$PLAIN_JAR"
+report "fast-start" -XX:SharedArchiveFile="$FAST_DIR/application.jsa" -Dspring.aot.enabled=true -jar "$FAST_DIR/$JAR_NAME"
@@ -1,20 +1,36 @@
 package com.amazon.gain.list;
 
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+
 @Component
 public class AmazonListBuilderRunner implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(AmazonListBuilderRunner.class);
 
     private final AmazonListBuilderService amazonListBuilderService;
+    private final ControlServer controlServer;
 
-    public AmazonListBuilderRunner(AmazonListBuilderService amazonListBuilderService) {
+    public AmazonListBuilderRunner(AmazonListBuilderService amazonListBuilderService, ControlServer controlServer) {
         this.amazonListBuilderService = amazonListBuilderService;
+        this.controlServer = controlServer;
     }
 
     @Override
     public void run(String... args) {
-        amazonListBuilderService.processOrders();
+        try {
+            controlServer.start();
+        } catch (IOException e) {
+            logger.warn("Could not start the control endpoint. Continuing without it.", e);
+        }
+        try {
+            amazonListBuilderService.processOrders();
+        } finally {
+            controlServer.stop();
+        }
     }
 }
@@ -6,6 +6,8 @@ import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
@@ -15,43 +17,110 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class AmazonListBuilderService {
     private static final Logger logger = LoggerFactory.getLogger(AmazonListBuilderService.class);
     private static final String AMAZON_URL = "https://www.amazon.com";
+    private static final int PROBE_ATTEMPTS = 3;
+    private static final int ORDERS_PER_PAGE = 10;
+    private static final Pattern ASIN_PATTERN = Pattern.compile("/(?:dp|gp/product)/([A-Z0-9]{10})");
 
     private final AmazonProperties amazonProperties;
+    private final HumanInterventionService humanInterventionService;
+    private final NetworkTimingRecorder networkTimingRecorder;
+    private final FlightRecorderSupport flightRecorderSupport;
+    private final PageArchive pageArchive;
+    private final ReplayServer replayServer;
+    private final ShardCoordinator shardCoordinator;
+    private final ListReconciler listReconciler;
+    private final NegativeAsinCache negativeAsinCache;
+    private final RunControl runControl;
+    private final DiagnosticsCapture diagnosticsCapture;
+    private final AtomicReference<ShardLease> currentLease = new AtomicReference<>();
+    private final Map<String, ProductLink> submittedItems = new LinkedHashMap<>();
+    private String nodeId;
+    private String baseUrl = AMAZON_URL;
     private WebDriver driver;
     private WebDriverWait wait;
 
     private Actions actions;
-
-    public AmazonListBuilderService(AmazonProperties amazonProperties) {
+    private ProductPrefetcher productPrefetcher;
+    private BrowserTabScheduler tabScheduler;
+    private ExecutorService tabWorkers;
+
+    // Where the run currently is, used to tag timing records
+    private String currentYear;
+    private int currentPage;
+
+    public AmazonListBuilderService(AmazonProperties amazonProperties,
+                                    HumanInterventionService humanInterventionService,
+                                    NetworkTimingRecorder networkTimingRecorder,
+                                    FlightRecorderSupport flightRecorderSupport,
+                                    PageArchive pageArchive,
+                                    ReplayServer replayServer,
+                                    ShardCoordinator shardCoordinator,
+                                    ListReconciler listReconciler,
+                                    NegativeAsinCache negativeAsinCache,
+                                    RunControl runControl,
+                                    DiagnosticsCapture diagnosticsCapture) {
         this.amazonProperties = amazonProperties;
+        this.humanInterventionService = humanInterventionService;
+        this.networkTimingRecorder = networkTimingRecorder;
+        this.flightRecorderSupport = flightRecorderSupport;
+        this.pageArchive = pageArchive;
+        this.replayServer = replayServer;
+        this.shardCoordinator = shardCoordinator;
+        this.listReconciler = listReconciler;
+        this.negativeAsinCache = negativeAsinCache;
+        this.runControl = runControl;
+        this.diagnosticsCapture = diagnosticsCapture;
     }
 
     public void processOrders() {
+        AmazonProperties.Sharding sharding = amazonProperties.getShard();
+        if (sharding.isEnabled() && (sharding.getRunId() == null || sharding.getRunId().isBlank())) {
+            logger.error("amazon.shard.run-id must be set when sharding is enabled, and the same on every node. Aborting.");
+            return;
+        }
         try {
+            submittedItems.clear();
+            runControl.start(Math.max(1, amazonProperties.getTabs().getWorkers()));
+            flightRecorderSupport.start();
             initialize();
             handleCaptcha();
             if (!isPageLoaded()) {
                 logger.error("Failed to load Amazon page. Aborting process.");
-                //saveScreenshot("failed_load");
+                recordFailure("failed_load");
                 return;
             }
             if (!isLoggedIn()) {
                 login();
+                handleCaptcha();
+                handleSecurityCode();
             } else {
                 logger.info("Already logged in. Skipping login process.");
             }
@@ -61,15 +130,34 @@ public class AmazonListBuilderService {
             processOrderList();
         } catch (Exception e) {
             logger.error("An error occurred: ", e);
-            //saveScreenshot("error_screenshot");
+            recordFailure("error_screenshot");
         } finally {
+            if (runControl.isCancelled()) {
+                flushCheckpoint();
+            }
             cleanup();
+            runControl.finish();
         }
     }
 
+    /**
+     * Hands back the shard a cancelled run was working on, so another node can pick it up right
+     * away, and writes out the negative cache. Nothing else is saved: without sharding, the next
+     * run starts again from the first year.
+     */
+    private void flushCheckpoint() {
+        ShardLease lease = currentLease.getAndSet(null);
+        if (lease != null) {
+            shardCoordinator.release(lease);
+        }
+        negativeAsinCache.flush();
+        logger.info("Checkpoint state flushed after cancel");
+    }
+
     private void navigateAndVerify() throws IOException {
         if (isElementClickable(By.id("nav-orders"))) {
             logger.info("Found 'Orders' link. Clicking to navigate.");
+            markNavigation("orders", null);
             driver.findElement(By.id("nav-orders")).click();
 
             // Wait for page load after clicking
@@ -101,7 +189,7 @@ public class AmazonListBuilderService {
                 logger.info("Already on Orders page. No further navigation needed.");
             } else {
                 logger.warn("Unable to determine page state. Please check manually.");
-                //saveScreenshot("unknown_page_state");
+                recordFailure("unknown_page_state");
             }
         }
     }
@@ -116,11 +204,12 @@ public class AmazonListBuilderService {
 
     private void handleVerification() {
         logger.info("Handling verification process");
-        //saveScreenshot("verification_page");
 
         try {
             // Wait for the email/phone input field to be visible
             WebElement inputField = wait.until(ExpectedConditions.visibilityOfElementLocated(By.id("ap_email")));
+            // Only now is there a verification form worth keeping a snapshot of
+            diagnosticsCapture.captureFailure(driver, "verification_page");
 
             // Clear any existing value in the field
             inputField.clear();
@@ -140,10 +229,10 @@ public class AmazonListBuilderService {
 
         } catch (TimeoutException e) {
             logger.error("Timed out waiting for verification elements", e);
-            //saveScreenshot("verification_timeout");
+            recordFailure("verification_timeout");
         } catch (Exception e) {
             logger.error("Error during verification process", e);
-            //saveScreenshot("verification_error");
+            recordFailure("verification_error");
         }
     }
 
@@ -173,31 +262,22 @@ public class AmazonListBuilderService {
     }
 
 
-    private void handleCaptcha() throws IOException {
-        logger.info("Waiting for potential CAPTCHA...");
-        System.out.println("ATTENTION: If you see a CAPTCHA, please solve it now.");
-        System.out.println("The program will wait for 30 seconds. Press Enter when you're done or if there's no CAPTCHA.");
-
-        //saveScreenshot("potential_captcha");
+    private boolean handleCaptcha() {
+        return humanInterventionService.awaitClearance(sessionId(), ChallengeType.CAPTCHA, driver.getCurrentUrl(), this::isCaptchaPresent);
+    }
 
-        Scanner scanner = new Scanner(System.in);
-        long startTime = System.currentTimeMillis();
-        long waitTime = 40000; // 30 seconds
+    private boolean isCaptchaPresent() {
+        return isElementPresent(By.cssSelector("form[action*='validateCaptcha'], #captchacharacters, #auth-captcha-image"));
+    }
 
-        while (System.currentTimeMillis() - startTime < waitTime) {
-            if (System.in.available() > 0) {
-                scanner.nextLine(); // Consume the Enter key press
-                break;
-            }
-            try {
-                Thread.sleep(1000); // Check every second
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("Interrupted while waiting for CAPTCHA input", e);
+    private String sessionId() {
+        if (driver instanceof RemoteWebDriver) {
+            SessionId id = ((RemoteWebDriver) driver).getSessionId();
+            if (id != null) {
+                return id.toString();
             }
         }
-
-        logger.info("Resuming operation after CAPTCHA wait period.");
+        return "local";
     }
 
     private void initialize() throws IOException {
@@ -211,12 +291,40 @@ public class AmazonListBuilderService {
         options.addArguments("--no-sandbox");
         options.addArguments("--disable-dev-shm-usage");
 
+        if (pageArchive.isReplaying()) {
+            // Serve everything from the archive and keep the browser off the network
+            baseUrl = replayServer.start();
+            options.addArguments("--host-resolver-rules=MAP * ~NOTFOUND , EXCLUDE localhost");
+        }
+        if (amazonProperties.getTabs().getWorkers() > 1) {
+            // With the default strategy ChromeDriver holds every command to a loading tab until its
+            // load event, which would stall all workers behind the slowest page. Eager only waits for
+            // DOMContentLoaded; BrowserTabScheduler.awaitLoaded polls for the rest.
+            options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+        }
+
         driver = new ChromeDriver(options);
         driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(40));
         wait = new WebDriverWait(driver, Duration.ofSeconds(40));
         actions = new Actions(driver);  // Initialize Actions object
-        logger.info("Navigating to Amazon URL: " + AMAZON_URL);
-        driver.get(AMAZON_URL);
+        networkTimingRecorder.attach(driver);
+        pageArchive.open(driver);
+        AmazonProperties.Prefetch prefetch = amazonProperties.getPrefetch();
+        int workers = amazonProperties.getTabs().getWorkers();
+        if (workers > 1) {
+            // Tab workers take precedence; prefetching would only compete with them for the browser
+            tabScheduler = new BrowserTabScheduler(driver, workers);
+            tabWorkers = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "tab-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else if (prefetch.getDepth() > 0) {
+            productPrefetcher = new ProductPrefetcher(driver, prefetch.getDepth(), prefetch.getMemoryCapMb(), prefetch.getEstimatedTabMb());
+        }
+        logger.info("Navigating to Amazon URL: " + baseUrl);
+        markNavigation("home", null);
+        driver.get(baseUrl);
     }
 
     private boolean isPageLoaded() {
@@ -231,7 +339,7 @@ public class AmazonListBuilderService {
             // Check the current URL
             String currentUrl = driver.getCurrentUrl();
             logger.info("Current URL: " + currentUrl);
-            if (!currentUrl.contains("amazon.com")) {
+            if (!currentUrl.contains(pageArchive.isReplaying() ? "localhost" : "amazon.com")) {
                 logger.error("Not on Amazon website. Current URL: " + currentUrl);
                 return false;
             }
@@ -280,16 +388,6 @@ public class AmazonListBuilderService {
         }
     }
 
-    private void saveScreenshot(String fileName) {
-        try {
-            File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-            Files.copy(screenshot.toPath(), Paths.get(fileName + ".png"), StandardCopyOption.REPLACE_EXISTING);
-            logger.info("Screenshot saved: " + fileName + ".png");
-        } catch (IOException e) {
-            logger.error("Failed to save screenshot", e);
-        }
-    }
-
     private void waitForPageLoad() {
         wait.until(webDriver -> ((JavascriptExecutor) webDriver)
                 .executeScript("return document.readyState").equals("complete"));
@@ -310,7 +408,10 @@ public class AmazonListBuilderService {
     }
 
     private void login() {
+        AutomationEvents.Login loginEvent = new AutomationEvents.Login();
+        loginEvent.begin();
         WebElement signInButton = wait.until(ExpectedConditions.elementToBeClickable(By.id("nav-link-accountList")));
+        markNavigation("login", null);
         signInButton.click();
 
         WebElement emailField = wait.until(ExpectedConditions.visibilityOfElementLocated(By.id("ap_email")));
@@ -325,20 +426,165 @@ public class AmazonListBuilderService {
         WebElement signInSubmit = driver.findElement(By.id("signInSubmit"));
         signInSubmit.click();
 
+        loginEvent.commit();
         logger.info("Logged in successfully");
     }
 
     private void processOrderList() {
         logger.info("Processing order list");
-        List<String> years = getAvailableYears();
-        for (String year : years) {
-            selectYear(year);
-            // Process orders for the selected year
-            processOrdersForYear(year);
+        if (amazonProperties.getShard().isEnabled()) {
+            processShards();
+        } else {
+            List<String> years = getAvailableYears();
+            runControl.yearsPlanned((int) years.stream().filter(year -> !isYearSkipped(year)).count());
+            for (String year : years) {
+                if (!runControl.awaitUnpaused()) {
+                    break;
+                }
+                selectYear(year);
+                // Process orders for the selected year
+                processOrdersForYear(year);
+            }
+        }
+        if (runControl.isCancelled()) {
+            logger.info("Run cancelled. Skipping list reconciliation.");
+            return;
+        }
+        reconcileList();
+    }
+    /**
+     * Works through year/page shards leased from the shared coordinator until every shard is done,
+     * so several hosts can split one account's history. Each page publishes the next page of its
+     * year as a new shard as soon as it sees one, before processing its own orders.
+     */
+    private void processShards() {
+        nodeId = resolveNodeId();
+        List<Shard> firstPages = new ArrayList<>();
+        for (String year : getAvailableYears()) {
+            if (!isYearSkipped(year)) {
+                firstPages.add(new Shard(year, 1));
+            }
+        }
+        shardCoordinator.publish(firstPages);
+        if (firstPages.isEmpty()) {
+            logger.warn("No years to process on this node");
+        }
+        logger.info("Node " + nodeId + " joined shard processing");
+
+        AmazonProperties.Sharding settings = amazonProperties.getShard();
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeatSeconds = Math.max(1, settings.getLeaseSeconds() / 3);
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        try {
+            while (!Thread.currentThread().isInterrupted() && runControl.awaitUnpaused()) {
+                Optional<ShardLease> lease = shardCoordinator.claim(nodeId);
+                if (lease.isEmpty()) {
+                    if (shardCoordinator.isFinished()) {
+                        break;
+                    }
+                    // Remaining shards are leased by other nodes; wait in case a lease expires
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(settings.getPollIntervalSeconds()));
+                    continue;
+                }
+                currentLease.set(lease.get());
+                runControl.shardStarted(lease.get().shard(), Math.max(0, shardCoordinator.remaining() - 1));
+                processShard(lease.get().shard());
+                if (runControl.isCancelled()) {
+                    break; // The unfinished shard is handed back by flushCheckpoint()
+                }
+                shardCoordinator.complete(currentLease.getAndSet(null));
+                runControl.shardFinished();
+            }
+            logger.info(runControl.isCancelled() ? "Stopped taking shards after cancel" : "All shards are done");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for shards", e);
+        } finally {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    private void processShard(Shard shard) {
+        logger.info("Processing shard " + shard.key());
+        selectYear(shard.year());
+        currentYear = shard.year();
+        currentPage = shard.page();
+        if (shard.page() > 1) {
+            markNavigation("shard-page", null);
+            driver.get(withStartIndex(driver.getCurrentUrl(), (shard.page() - 1) * ORDERS_PER_PAGE));
+            waitForPageLoad();
+        }
+        if (isNextPageAvailable()) {
+            shardCoordinator.publish(List.of(new Shard(shard.year(), shard.page() + 1)));
+        }
+        processOrderPage(shard.year(), shard.page());
+    }
+
+    private void sendHeartbeat() {
+        ShardLease lease = currentLease.get();
+        if (lease == null) {
+            return;
+        }
+        try {
+            Optional<ShardLease> renewed = shardCoordinator.renew(lease);
+            if (renewed.isPresent()) {
+                currentLease.compareAndSet(lease, renewed.get());
+            } else {
+                logger.warn("Lost lease on shard " + lease.shard().key() + "; another node may take it over");
+            }
+        } catch (Exception e) {
+            logger.warn("Shard heartbeat failed", e);
+        }
+    }
+
+    private String resolveNodeId() {
+        String configured = amazonProperties.getShard().getNodeId();
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    /**
+     * Claims the ASIN centrally under the current shard lease when sharding, so no two nodes add
+     * the same item.
+     */
+    private boolean claimItem(String asin) {
+        ShardLease lease = currentLease.get();
+        if (!amazonProperties.getShard().isEnabled() || asin == null || lease == null) {
+            return true;
+        }
+        return shardCoordinator.claimAsin(asin, lease);
+    }
+
+    private void releaseItem(String asin) {
+        ShardLease lease = currentLease.get();
+        if (amazonProperties.getShard().isEnabled() && asin != null && lease != null) {
+            shardCoordinator.releaseAsin(asin, lease);
         }
     }
+
+    private static String withStartIndex(String url, int startIndex) {
+        String base = url.replaceAll("([?&])startIndex=\\d+&?", "$1").replaceAll("[?&]$", "");
+        return base + (base.contains("?") ? "&" : "?") + "startIndex=" + startIndex;
+    }
+
     private List<String> getAvailableYears() {
-        List<String> years = new ArrayList<>();
+        List<String> years = getYearsFromTimeFilter();
+        if (!years.isEmpty()) {
+            logger.info("Available years: " + years);
+            return years;
+        }
         int maxAttempts = 3;
         for (int attempt = 0; attempt < maxAttempts; attempt++) {
             try {
@@ -364,14 +610,31 @@ public class AmazonListBuilderService {
                 }
             } catch (StaleElementReferenceException e) {
                 logger.warn("Stale element on attempt " + (attempt + 1) + ", retrying...");
+                recordStaleElement("available-years");
             } catch (Exception e) {
                 logger.error("Error getting available years on attempt " + (attempt + 1), e);
+                recordRetry("available-years", attempt + 1, e);
             }
         }
         logger.info("Available years: " + years);
         return years;
     }
 
+    /**
+     * Reads the years straight from the native time filter select that backs the dropdown.
+     * Needs no clicks, so it also works on archived pages that have no scripts.
+     */
+    private List<String> getYearsFromTimeFilter() {
+        List<String> years = new ArrayList<>();
+        for (WebElement option : driver.findElements(By.cssSelector("select[name='timeFilter'] option, select[name='orderFilter'] option"))) {
+            String value = option.getAttribute("value");
+            if (value != null && value.matches("year-\\d{4}")) {
+                years.add(value.substring("year-".length()));
+            }
+        }
+        return years;
+    }
+
     private void selectYear1(String year) {
         int maxAttempts = 3;
         for (int attempt = 0; attempt < maxAttempts; attempt++) {
@@ -415,7 +678,7 @@ public class AmazonListBuilderService {
                 }
             } catch (Exception e) {
                 logger.error("Error selecting year " + year + " on attempt " + (attempt + 1), e);
-                //saveScreenshot("year_selection_error_" + year + "_attempt_" + (attempt + 1));
+                recordFailure("year_selection_error_" + year + "_attempt_" + (attempt + 1));
             }
         }
         logger.error("Failed to select year " + year + " after " + maxAttempts + " attempts");
@@ -423,7 +686,21 @@ public class AmazonListBuilderService {
 
     private void selectYear(String year) {
 
-        if(Integer.parseInt(year) >2006){
+        if (isYearSkipped(year)) {
+            return;
+        }
+        AutomationEvents.YearSelect yearSelectEvent = new AutomationEvents.YearSelect();
+        yearSelectEvent.begin();
+        yearSelectEvent.year = year;
+        if (pageArchive.isReplaying()) {
+            currentYear = year;
+            currentPage = 1;
+            markNavigation("select-year", null);
+            driver.get(baseUrl + PageArchive.yearPath(year));
+            waitForPageLoad();
+            yearSelectEvent.attempts = 1;
+            yearSelectEvent.success = true;
+            yearSelectEvent.commit();
             return;
         }
         int maxAttempts = 5;
@@ -446,6 +723,9 @@ public class AmazonListBuilderService {
                         By.xpath("//a[@class='a-dropdown-link' and contains(text(), '" + year + "')]")));
 
                 // Click the year option
+                currentYear = year;
+                currentPage = 1;
+                markNavigation("select-year", null);
                 clickElement(yearOption);
 
                 // Wait for the page to reload after selecting the year
@@ -456,17 +736,24 @@ public class AmazonListBuilderService {
                         By.cssSelector("[data-action='a-dropdown-button'] .a-dropdown-prompt")));
                 if (selectedYear.getText().contains(year)) {
                     logger.info("Successfully selected year: " + year);
+                    pageArchive.recordAlias(PageArchive.yearPath(year), driver.getCurrentUrl());
+                    yearSelectEvent.attempts = attempt + 1;
+                    yearSelectEvent.success = true;
+                    yearSelectEvent.commit();
                     return;  // Year selected successfully, exit the method
                 } else {
                     throw new Exception("Year not selected correctly");
                 }
             } catch (Exception e) {
                 logger.warn("Attempt " + (attempt + 1) + " failed to select year " + year + ": " + e.getMessage());
+                recordRetry("select-year", attempt + 1, e);
                 if (attempt == maxAttempts - 1) {
                     logger.error("Failed to select year " + year + " after " + maxAttempts + " attempts", e);
                 }
             }
         }
+        yearSelectEvent.attempts = maxAttempts;
+        yearSelectEvent.commit();
     }
 
     private void clickElement(WebElement element) {
@@ -475,7 +762,18 @@ public class AmazonListBuilderService {
             element.click();
         } catch (ElementClickInterceptedException e) {
             logger.warn("Click intercepted, trying with JavaScript...");
-            ((JavascriptExecutor) driver).executeScript("arguments[0].click();", element);
+            AutomationEvents.ClickFallback clickFallbackEvent = new AutomationEvents.ClickFallback();
+            clickFallbackEvent.element = "unknown";
+            try {
+                // The tag name comes back from the click script itself; no extra round trip to an unstable element
+                Object tagName = ((JavascriptExecutor) driver).executeScript(
+                        "arguments[0].click(); return arguments[0].tagName.toLowerCase();", element);
+                if (tagName instanceof String) {
+                    clickFallbackEvent.element = (String) tagName;
+                }
+            } finally {
+                clickFallbackEvent.commit();
+            }
         } catch (Exception e) {
             logger.error("Failed to click element", e);
             throw e;  // Rethrow to be handled by the calling method
@@ -504,80 +802,99 @@ public class AmazonListBuilderService {
             logger.info("Phone number input not found. It may not be required.");
         } catch (Exception e) {
             logger.error("Error entering phone number", e);
-            //saveScreenshot("phone_number_error");
+            recordFailure("phone_number_error");
         }
     }
 
-    private void handleSecurityCode() throws IOException {
-        logger.info("Waiting for security code entry...");
-        System.out.println("ATTENTION: If you see a security code input, please enter it now.");
-        System.out.println("The program will wait for 30 seconds. Press Enter when you're done or if no code is required.");
-
-        //saveScreenshot("security_code_page");
-
-        Scanner scanner = new Scanner(System.in);
-        long startTime = System.currentTimeMillis();
-        long waitTime = 15000; // 30 seconds
-
-        while (System.currentTimeMillis() - startTime < waitTime) {
-            if (System.in.available() > 0) {
-                scanner.nextLine(); // Consume the Enter key press
-                break;
-            }
-            try {
-                Thread.sleep(1000); // Check every second
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("Interrupted while waiting for security code input", e);
-            }
-        }
+    private boolean handleSecurityCode() {
+        return humanInterventionService.awaitClearance(sessionId(), ChallengeType.SECURITY_CODE, driver.getCurrentUrl(), this::isSecurityCodePresent);
+    }
 
-        logger.info("Resuming operation after security code wait period.");
+    private boolean isSecurityCodePresent() {
+        return isElementPresent(By.cssSelector("input[name='code'], input[name='otpCode'], #auth-mfa-otpcode, #cvf-input-code"));
     }
 
     private void processOrdersForYear(String year) {
         logger.info("Processing orders for year: " + year);
-        if(Integer.parseInt(year) >2006){
+        if (isYearSkipped(year)) {
             return;
         }
         logger.info("Processing orders for year: " + year);
+        runControl.yearStarted(year);
         boolean hasNextPage;
         int pageNumber = 1;
 
         do {
-            logger.info("Processing page " + pageNumber + " for year " + year);
-
-            // Wait for the page to load and find order elements
-            List<WebElement> orderElements = waitForOrderElements();
-
-            if (orderElements.isEmpty()) {
-                logger.warn("No order elements found on page " + pageNumber + " for year " + year);
+            if (!runControl.awaitUnpaused() || !processOrderPage(year, pageNumber) || runControl.isCancelled()) {
                 break;
             }
-
-            for (WebElement orderElement : orderElements) {
-                try {
-                    processOrder(orderElement);
-                } catch (StaleElementReferenceException e) {
-                    logger.warn("Encountered stale element, retrying...");
-                    // Re-find the order elements and retry processing this order
-                    orderElements = waitForOrderElements();
-                    int index = orderElements.indexOf(orderElement);
-                    if (index != -1 && index < orderElements.size()) {
-                        processOrder(orderElements.get(index));
-                    }
-                } catch (Exception e) {
-                    logger.error("Error processing order", e);
-                }
-            }
-
             hasNextPage = goToNextPage();
             pageNumber++;
         } while (hasNextPage);
+        runControl.yearFinished();
 
         logger.info("Finished processing all orders for year " + year);
     }
 
+    private boolean isYearSkipped(String year) {
+        return Integer.parseInt(year) > 2006;
+    }
+
+    /**
+     * Processes the orders on the order-history page currently shown. Returns false if it has none.
+     */
+    private boolean processOrderPage(String year, int pageNumber) {
+        logger.info("Processing page " + pageNumber + " for year " + year);
+        currentYear = year;
+        currentPage = pageNumber;
+
+        // Wait for the page to load and find order elements
+        AutomationEvents.PageLoad pageLoadEvent = new AutomationEvents.PageLoad();
+        pageLoadEvent.begin();
+        List<WebElement> orderElements = waitForOrderElements();
+        pageLoadEvent.year = year;
+        pageLoadEvent.pageNumber = pageNumber;
+        pageLoadEvent.orders = orderElements.size();
+        pageLoadEvent.commit();
+
+        if (orderElements.isEmpty()) {
+            logger.warn("No order elements found on page " + pageNumber + " for year " + year);
+            return false;
+        }
+
+        runControl.workerState(sessionId(), "year " + year + ", page " + pageNumber);
+        if (tabScheduler != null || productPrefetcher != null) {
+            List<ProductLink> products = harvestProducts(orderElements);
+            runControl.pageStarted(year, pageNumber, products.size());
+            if (tabScheduler != null) {
+                processQueueOnTabs(products);
+            } else {
+                processProductQueue(products);
+            }
+            return true;
+        }
+
+        runControl.pageStarted(year, pageNumber, driver.findElements(By.cssSelector("div.yohtmlc-product-title")).size());
+
+        for (WebElement orderElement : orderElements) {
+            try {
+                processOrder(orderElement);
+            } catch (StaleElementReferenceException e) {
+                logger.warn("Encountered stale element, retrying...");
+                recordStaleElement("process-order");
+                // Re-find the order elements and retry processing this order
+                orderElements = waitForOrderElements();
+                int index = orderElements.indexOf(orderElement);
+                if (index != -1 && index < orderElements.size()) {
+                    processOrder(orderElements.get(index));
+                }
+            } catch (Exception e) {
+                logger.error("Error processing order", e);
+            }
+        }
+        return true;
+    }
+
     private List<WebElement> waitForOrderElements() {
         try {
             // First, wait for either order elements or the "num-orders" span
@@ -619,101 +936,509 @@ public class AmazonListBuilderService {
     }
 
     private void processOrder(WebElement orderCard) {
+        String claimedAsin = null;
         try {
             List<WebElement> itemLinks = orderCard.findElements(By.cssSelector("div.yohtmlc-product-title"));
 
+            AutomationEvents.OrderExtracted orderExtractedEvent = new AutomationEvents.OrderExtracted();
+            orderExtractedEvent.year = currentYear;
+            orderExtractedEvent.pageNumber = currentPage;
+            orderExtractedEvent.items = itemLinks.size();
+            orderExtractedEvent.commit();
+
             for (WebElement itemLink : itemLinks) {
+                if (!runControl.awaitTurn()) {
+                    return;
+                }
+                AutomationEvents.ItemAdded itemAddedEvent = new AutomationEvents.ItemAdded();
+                itemAddedEvent.begin();
+                itemAddedEvent.year = currentYear;
+                itemAddedEvent.pageNumber = currentPage;
+                String url = productUrl(itemLink);
+                String title = itemLink.getText();
+                itemAddedEvent.asin = extractAsin(url);
+                if (negativeAsinCache.isKnownDead(itemAddedEvent.asin)) {
+                    logger.info("ASIN " + itemAddedEvent.asin + " is in the negative cache. Skipping without navigating.");
+                    runControl.itemDone(false);
+                    continue;
+                }
+                if (!claimItem(itemAddedEvent.asin)) {
+                    logger.info("ASIN " + itemAddedEvent.asin + " was already added by another node. Skipping.");
+                    runControl.itemDone(false);
+                    continue;
+                }
+                claimedAsin = itemAddedEvent.asin;
+
                 // Click on the item link
+                markNavigation("product", title);
                 clickElement(itemLink);
-                if (isSorryPage()) {
-                    logger.info("Encountered a 'Sorry' page. Skipping this item.");
+                DeadProductReason deadReason = probeProductPage();
+                if (deadReason != null) {
+                    logger.info("Product page is dead (" + deadReason + "). Skipping this item.");
+                    negativeAsinCache.markDead(claimedAsin, deadReason);
+                    releaseItem(claimedAsin);
+                    claimedAsin = null;
+                    runControl.itemDone(false);
+                    markNavigation("back-to-orders", null);
                     driver.navigate().back();
 //                    wait.until(ExpectedConditions.visibilityOfElementLocated(By.cssSelector(".order-card")));
                     waitForOrderElements();
                     continue;  // Skip to the next item
                 }
 
-                // Wait for the page to load
-                wait.until(ExpectedConditions.visibilityOfElementLocated(By.id("add-to-wishlist-button")));
-
-                // Click the "Add to List" button
-                WebElement addToListButton = driver.findElement(By.id("add-to-wishlist-button"));
-                clickElement(addToListButton);
-
-                // Wait for the wishlist dropdown to appear
-                wait.until(ExpectedConditions.visibilityOfElementLocated(By.id("atwl-list-name-1HWDU7LVZZB5K")));
-
-                // Select the first item in the dropdown list
-                WebElement firstWishlistOption = driver.findElement(By.id("atwl-list-name-1HWDU7LVZZB5K"));
-                clickElement(firstWishlistOption);
-
-                // Wait for the confirmation popup
-//                wait.until(ExpectedConditions.visibilityOfElementLocated(By.cssSelector(".a-popover-wrapper")));
-
-                // Close the popup
-//                handleWishlistPopup();
+                // No confirmation wait; reconcileList() checks what actually landed on the list
+                addCurrentProductToList();
+                recordSubmitted(new ProductLink(itemAddedEvent.asin, url, title));
 
                 // Navigate back to the orders page
+                markNavigation("back-to-orders", null);
                 driver.navigate().back();
 
                 // Wait for the orders page to load
 //                wait.until(ExpectedConditions.visibilityOfElementLocated(By.cssSelector(".order-card")));
                 waitForOrderElements();
-                try {
-                    // Wait for a few seconds
-                    Thread.sleep(3000);  // 5 seconds delay
-                    logger.info("Order page wait");
-                } catch (InterruptedException e) {
-                    logger.error("Order page wait Sleep interrupted", e);
-                    Thread.currentThread().interrupt();
-                } catch (Exception e) {
-                    logger.error("Error handling Order page wait", e);
-                }
 
+                itemAddedEvent.commit();
+                claimedAsin = null;
+                runControl.itemDone(true);
                 logger.info("Added item to wishlist and returned to orders page");
             }
         } catch (StaleElementReferenceException e) {
             logger.warn("Encountered stale element while processing order, skipping...");
+            recordStaleElement("process-item");
+            if (claimedAsin != null) {
+                failItem(claimedAsin);
+            }
         } catch (Exception e) {
             logger.error("Error processing order", e);
+            recordFailure("order_error");
+            if (claimedAsin != null) {
+                failItem(claimedAsin);
+            }
+        }
+    }
+
+    /**
+     * Gives back the claim on an item that was not added and counts it as done.
+     */
+    private void failItem(String asin) {
+        releaseItem(asin);
+        runControl.itemDone(false);
+    }
+
+    /**
+     * Reads every product link off the order cards up front, so the items can be worked through as
+     * a queue without leaving the order-history tab.
+     */
+    private List<ProductLink> harvestProducts(List<WebElement> orderCards) {
+        List<ProductLink> products = new ArrayList<>();
+        for (WebElement orderCard : orderCards) {
+            try {
+                List<WebElement> itemLinks = orderCard.findElements(By.cssSelector("div.yohtmlc-product-title"));
+                for (WebElement itemLink : itemLinks) {
+                    String url = productUrl(itemLink);
+                    products.add(new ProductLink(extractAsin(url), url, itemLink.getText()));
+                }
+
+                AutomationEvents.OrderExtracted orderExtractedEvent = new AutomationEvents.OrderExtracted();
+                orderExtractedEvent.year = currentYear;
+                orderExtractedEvent.pageNumber = currentPage;
+                orderExtractedEvent.items = itemLinks.size();
+                orderExtractedEvent.commit();
+            } catch (StaleElementReferenceException e) {
+                logger.warn("Encountered stale element while reading order, skipping...");
+                recordStaleElement("harvest-order");
+            }
+        }
+        logger.info("Harvested " + products.size() + " products on page " + currentPage + " for year " + currentYear);
+        return products;
+    }
+
+    /**
+     * Claims the whole page up front, so the lookahead only prefetches items this node will
+     * actually add. Claims of items not reached when the run stops early are given back.
+     */
+    private void processProductQueue(List<ProductLink> queue) {
+        List<ProductLink> work = new ArrayList<>();
+        for (ProductLink product : queue) {
+            if (product.url() == null) {
+                logger.warn("No link found for item '" + product.title() + "'. Skipping.");
+                runControl.itemDone(false);
+            } else if (negativeAsinCache.isKnownDead(product.asin())) {
+                logger.info("ASIN " + product.asin() + " is in the negative cache. Skipping without navigating.");
+                runControl.itemDone(false);
+            } else if (!claimItem(product.asin())) {
+                logger.info("ASIN " + product.asin() + " was already added by another node. Skipping.");
+                runControl.itemDone(false);
+            } else {
+                work.add(product);
+            }
+        }
+        int next = 0;
+        try {
+            while (next < work.size() && runControl.awaitTurn()) {
+                ProductLink product = work.get(next++);
+                processProduct(product, upcomingUrls(work, next));
+            }
+        } finally {
+            for (ProductLink product : work.subList(next, work.size())) {
+                releaseItem(product.asin());
+            }
+            productPrefetcher.closeAll();
         }
     }
 
-    private boolean isSorryPage() {
+    private void processProduct(ProductLink product, List<String> upcoming) {
+        AutomationEvents.ItemAdded itemAddedEvent = new AutomationEvents.ItemAdded();
+        itemAddedEvent.begin();
+        itemAddedEvent.year = currentYear;
+        itemAddedEvent.pageNumber = currentPage;
+        itemAddedEvent.asin = product.asin();
         try {
-            // Wait a short time for the page to load
-            Thread.sleep(1000);
+            markNavigation("product", product.title());
+            productPrefetcher.open(product.url(), upcoming);
+            DeadProductReason deadReason = probeProductPage();
+            if (deadReason != null) {
+                logger.info("Product page is dead (" + deadReason + "). Skipping this item.");
+                negativeAsinCache.markDead(product.asin(), deadReason);
+                failItem(product.asin());
+                return;
+            }
+            addCurrentProductToList();
+            recordSubmitted(product);
+            pageArchive.capture(driver);
+            itemAddedEvent.commit();
+            runControl.itemDone(true);
+            logger.info("Added item to wishlist: " + product.title());
+        } catch (StaleElementReferenceException e) {
+            logger.warn("Encountered stale element while processing item, skipping...");
+            recordStaleElement("process-item");
+            failItem(product.asin());
+        } catch (Exception e) {
+            logger.error("Error processing item " + product.url(), e);
+            recordFailure("item_error_" + product.asin());
+            failItem(product.asin());
+        } finally {
+            productPrefetcher.closeCurrent();
+        }
+    }
+
+    /**
+     * Works through the queue with one logical worker per tab. Each worker starts its page load and
+     * waits for it without holding the browser, then takes the browser for the probe and the add.
+     * Everything that touches the driver or run state happens inside {@link BrowserTabScheduler#withTab},
+     * so those steps are serialized and only the page loads overlap. A CAPTCHA found by the probe is
+     * handed to the operator while the browser is held, so every worker waits until it is cleared.
+     */
+    private void processQueueOnTabs(List<ProductLink> queue) {
+        ConcurrentLinkedQueue<ProductLink> pending = new ConcurrentLinkedQueue<>();
+        for (ProductLink product : queue) {
+            if (product.url() == null) {
+                logger.warn("No link found for item '" + product.title() + "'. Skipping.");
+                runControl.itemDone(false);
+            } else if (negativeAsinCache.isKnownDead(product.asin())) {
+                logger.info("ASIN " + product.asin() + " is in the negative cache. Skipping without navigating.");
+                runControl.itemDone(false);
+            } else {
+                pending.add(product);
+            }
+        }
 
-            // Check for an image with "Sorry" in its alt text
-            List<WebElement> sorryImages = driver.findElements(By.cssSelector("img[alt*='Sorry' i]"));
-            return !sorryImages.isEmpty();
+        List<Future<?>> running = new ArrayList<>();
+        List<String> handles = tabScheduler.getWorkerHandles();
+        for (int i = 0; i < handles.size(); i++) {
+            int worker = i;
+            String handle = handles.get(i);
+            running.add(tabWorkers.submit(() -> runTabWorker(worker, handle, pending)));
+        }
+        try {
+            // Wait for every worker, even after one fails, so none is still using the browser
+            for (Future<?> worker : running) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    logger.error("Tab worker failed", e.getCause());
+                }
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            logger.warn("Interrupted while waiting for page load", e);
+            running.forEach(worker -> worker.cancel(true));
+        } finally {
+            tabScheduler.returnToOrders();
+        }
+    }
+
+    private void runTabWorker(int worker, String handle, ConcurrentLinkedQueue<ProductLink> pending) {
+        Duration loadTimeout = Duration.ofSeconds(amazonProperties.getTabs().getLoadTimeoutSeconds());
+        String workerName = sessionId() + "/tab-" + (worker + 1);
+        ProductLink product;
+        while (runControl.awaitTurn(worker, () -> !pending.isEmpty()) && (product = pending.poll()) != null) {
+            ProductLink item = product;
+            runControl.workerState(workerName, "adding " + item.asin());
+            AutomationEvents.ItemAdded itemAddedEvent = new AutomationEvents.ItemAdded();
+            itemAddedEvent.begin();
+            itemAddedEvent.year = currentYear;
+            itemAddedEvent.pageNumber = currentPage;
+            itemAddedEvent.asin = item.asin();
+            try {
+                if (!claimItem(item.asin())) {
+                    logger.info("ASIN " + item.asin() + " was already added by another node. Skipping.");
+                    runControl.itemDone(false);
+                    continue;
+                }
+                tabScheduler.navigate(handle, item.url());
+                tabScheduler.awaitLoaded(handle, loadTimeout);
+                tabScheduler.withTab(handle, wd -> {
+                    DeadProductReason deadReason = probeProductPage();
+                    if (deadReason != null) {
+                        logger.info("Product page is dead (" + deadReason + "). Skipping this item.");
+                        negativeAsinCache.markDead(item.asin(), deadReason);
+                        failItem(item.asin());
+                        return null;
+                    }
+                    addCurrentProductToList();
+                    recordSubmitted(item);
+                    pageArchive.capture(wd);
+                    itemAddedEvent.commit();
+                    runControl.itemDone(true);
+                    diagnosticsCapture.sample(wd, "added_" + item.asin());
+                    logger.info("Added item to wishlist: " + item.title());
+                    return null;
+                });
+            } catch (StaleElementReferenceException e) {
+                logger.warn("Encountered stale element while processing item, skipping...");
+                recordStaleElement("process-item");
+                failItem(item.asin());
+            } catch (Exception e) {
+                logger.error("Error processing item " + item.url(), e);
+                recordTabFailure(handle, "item_error_" + item.asin());
+                failItem(item.asin());
+            }
+        }
+        runControl.workerState(workerName, null);
+    }
+
+    private void recordTabFailure(String handle, String reason) {
+        try {
+            tabScheduler.withTab(handle, wd -> {
+                diagnosticsCapture.captureFailure(wd, reason);
+                return null;
+            });
         } catch (Exception e) {
-            logger.warn("Error checking for 'Sorry' page", e);
+            logger.debug("Could not switch to tab " + handle + " for diagnostics", e);
+        }
+        flightRecorderSupport.dump(reason);
+    }
+
+    private List<String> upcomingUrls(List<ProductLink> queue, int fromIndex) {
+        List<String> urls = new ArrayList<>();
+        for (int i = fromIndex; i < queue.size(); i++) {
+            if (!negativeAsinCache.isKnownDead(queue.get(i).asin())) {
+                urls.add(queue.get(i).url());
+            }
+        }
+        return urls;
+    }
+
+    private void addCurrentProductToList() {
+        // Wait for the page to load
+        wait.until(ExpectedConditions.visibilityOfElementLocated(By.id("add-to-wishlist-button")));
+
+        // Click the "Add to List" button
+        WebElement addToListButton = driver.findElement(By.id("add-to-wishlist-button"));
+        clickElement(addToListButton);
+
+        // Wait for the wishlist dropdown to appear
+        By listOption = By.id("atwl-list-name-" + amazonProperties.getListId());
+        wait.until(ExpectedConditions.visibilityOfElementLocated(listOption));
+
+        // Select the target list in the dropdown
+        WebElement targetListOption = driver.findElement(listOption);
+        clickElement(targetListOption);
+    }
+
+    private void recordSubmitted(ProductLink product) {
+        if (product.asin() != null) {
+            submittedItems.put(product.asin(), product);
+            ShardLease lease = currentLease.get();
+            if (amazonProperties.getShard().isEnabled() && lease != null) {
+                shardCoordinator.markAsinAdded(product.asin(), lease);
+            }
         }
-        return false;
     }
 
-    private void handleWishlistPopup() {
+    /**
+     * Reads the target list once, compares it with everything submitted during the run and
+     * re-adds only the missing items, for a bounded number of passes.
+     */
+    private void reconcileList() {
+        AmazonProperties.Reconcile settings = amazonProperties.getReconcile();
+        if (!settings.isEnabled() || submittedItems.isEmpty()) {
+            return;
+        }
+        for (int pass = 0; ; pass++) {
+            markNavigation("read-list", null);
+            ListReconciler.ListContents list = listReconciler.readList(driver, baseUrl);
+            Set<String> missing = ListReconciler.missing(submittedItems.keySet(), list.asins());
+            if (missing.isEmpty()) {
+                logger.info("All " + submittedItems.size() + " submitted items are on the list");
+                return;
+            }
+            if (!list.complete()) {
+                // Unseen items are most likely further down the list; re-adding them all would be a flood of redundant adds
+                logger.warn("Only part of the list could be read. " + missing.size() + " submitted items were not seen. Skipping the retry pass.");
+                return;
+            }
+            if (pass >= settings.getMaxRetryPasses()) {
+                logger.warn(missing.size() + " items are still missing from the list after " + pass + " retry passes: " + missing);
+                return;
+            }
+            logger.info(missing.size() + " of " + submittedItems.size() + " items missing from the list. Retry pass " + (pass + 1));
+            for (String asin : missing) {
+                retryAdd(submittedItems.get(asin));
+            }
+        }
+    }
+
+    private void retryAdd(ProductLink product) {
+        if (negativeAsinCache.isKnownDead(product.asin())) {
+            logger.info("ASIN " + product.asin() + " is in the negative cache. Not retrying.");
+            return;
+        }
         try {
-            // Wait for a few seconds
-            Thread.sleep(5000);  // 5 seconds delay
+            markNavigation("retry-product", product.title());
+            driver.get(product.url());
+            DeadProductReason deadReason = probeProductPage();
+            if (deadReason != null) {
+                logger.info("Product page is dead (" + deadReason + ") while retrying " + product.asin() + ". Skipping.");
+                negativeAsinCache.markDead(product.asin(), deadReason);
+                return;
+            }
+            addCurrentProductToList();
+            // The retry is the last chance for this item, so stay on the page until Amazon confirms it
+            awaitAddConfirmation();
+            logger.info("Re-added " + product.asin() + " to the list");
+        } catch (Exception e) {
+            logger.error("Retrying " + product.asin() + " failed", e);
+        }
+    }
 
-            // Find and click the close button
-            WebElement closeButton = driver.findElement(By.cssSelector("button[data-action='a-popover-close']"));
-            clickElement(closeButton);
+    /**
+     * Waits for the "added to list" popover, which only appears once the add request has returned.
+     */
+    private void awaitAddConfirmation() {
+        wait.until(ExpectedConditions.visibilityOfElementLocated(
+                By.cssSelector("#huc-atwl-header-section, #WLHUC_result, #huc-view-your-list-button")));
+    }
 
-            logger.info("Closed wishlist popup");
-        } catch (InterruptedException e) {
-            logger.error("Sleep interrupted", e);
-            Thread.currentThread().interrupt();
+    private String productUrl(WebElement itemLink) {
+        List<WebElement> anchors = itemLink.findElements(By.xpath("./ancestor-or-self::a | .//a"));
+        return anchors.isEmpty() ? null : anchors.get(0).getAttribute("href");
+    }
+
+    static String extractAsin(String productUrl) {
+        if (productUrl == null) {
+            return null;
+        }
+        Matcher matcher = ASIN_PATTERN.matcher(productUrl);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private void recordRetry(String operation, int attempt, Exception e) {
+        AutomationEvents.Retry retryEvent = new AutomationEvents.Retry();
+        retryEvent.operation = operation;
+        retryEvent.attempt = attempt;
+        retryEvent.reason = e.getClass().getSimpleName();
+        retryEvent.commit();
+    }
+
+    private void recordStaleElement(String operation) {
+        AutomationEvents.StaleElement staleElementEvent = new AutomationEvents.StaleElement();
+        staleElementEvent.operation = operation;
+        staleElementEvent.year = currentYear;
+        staleElementEvent.pageNumber = currentPage;
+        staleElementEvent.commit();
+    }
+
+    /**
+     * Waits until the product page shows either its add-to-list button or one of the dead-page
+     * markers, then says which. Returns null for a live product page.
+     * <p>
+     * Only a real product page is classified, since the result is cached for days. A CAPTCHA or
+     * security-code page goes to the operator first, and a 5xx page (Amazon's dog page when it is
+     * throttling) is reloaded. If neither clears up, this throws and the item fails without being
+     * cached.
+     */
+    private DeadProductReason probeProductPage() {
+        By addToListButton = By.id("add-to-wishlist-button");
+        By sorryImage = By.cssSelector("img[alt*='Sorry' i]");
+        By removedListing = By.cssSelector("img[alt*='Dogs of Amazon' i], img[src*='/error/']");
+        By challenge = By.cssSelector("form[action*='validateCaptcha'], #captchacharacters, #auth-captcha-image, "
+                + "input[name='code'], input[name='otpCode'], #auth-mfa-otpcode, #cvf-input-code");
+        for (int attempt = 1; ; attempt++) {
+            try {
+                new WebDriverWait(driver, Duration.ofSeconds(amazonProperties.getWaitTimeoutSeconds())).until(ExpectedConditions.or(
+                        ExpectedConditions.presenceOfElementLocated(addToListButton),
+                        ExpectedConditions.presenceOfElementLocated(sorryImage),
+                        ExpectedConditions.presenceOfElementLocated(removedListing),
+                        ExpectedConditions.presenceOfElementLocated(challenge)));
+            } catch (TimeoutException e) {
+                // Fall through: none of the markers showed up in time
+            }
+
+            if (isCaptchaPresent() || isSecurityCodePresent()) {
+                boolean cleared = isCaptchaPresent() ? handleCaptcha() : handleSecurityCode();
+                if (!cleared || attempt >= PROBE_ATTEMPTS) {
+                    throw new IllegalStateException("Challenge page was not cleared on " + driver.getCurrentUrl());
+                }
+                continue;
+            }
+
+            long status = responseStatus();
+            if (status >= 500) {
+                if (attempt >= PROBE_ATTEMPTS) {
+                    throw new IllegalStateException("Product page still returns HTTP " + status + " after " + attempt + " attempts");
+                }
+                logger.warn("Product page returned HTTP " + status + " on attempt " + attempt + ". Reloading.");
+                driver.navigate().refresh();
+                continue;
+            }
+            return classifyProductPage(addToListButton, sorryImage, removedListing);
+        }
+    }
+
+    private DeadProductReason classifyProductPage(By addToListButton, By sorryImage, By removedListing) {
+        try {
+            if (isElementPresent(sorryImage)) {
+                return DeadProductReason.SORRY_PAGE;
+            }
+            if (isElementPresent(removedListing)) {
+                return DeadProductReason.LISTING_REMOVED;
+            }
+            if (!isElementPresent(addToListButton)) {
+                // Only trust a missing button once the page has finished loading
+                Object readyState = ((JavascriptExecutor) driver).executeScript("return document.readyState");
+                return "complete".equals(readyState) ? DeadProductReason.NO_ADD_TO_LIST_BUTTON : null;
+            }
         } catch (Exception e) {
-            logger.error("Error handling wishlist popup", e);
+            logger.warn("Error checking product page state", e);
         }
+        return null;
     }
 
+    /**
+     * HTTP status of the current document, or 0 if the browser does not report it.
+     */
+    private long responseStatus() {
+        try {
+            Object status = ((JavascriptExecutor) driver).executeScript(
+                    "var entry = performance.getEntriesByType('navigation')[0]; return entry && entry.responseStatus ? entry.responseStatus : 0;");
+            return status instanceof Number ? ((Number) status).longValue() : 0;
+        } catch (Exception e) {
+            logger.debug("Could not read response status", e);
+            return 0;
+        }
+    }
 
     private void closePopup() {
         try {
@@ -823,10 +1548,19 @@ public class AmazonListBuilderService {
         return tempFile.toString();
     }
 
+    private boolean isNextPageAvailable() {
+        List<WebElement> nextButtons = driver.findElements(By.cssSelector(".a-pagination .a-last"));
+        return !nextButtons.isEmpty()
+                && !nextButtons.get(0).getAttribute("class").contains("a-disabled")
+                && !nextButtons.get(0).findElements(By.tagName("a")).isEmpty();
+    }
+
     private boolean goToNextPage() {
         try {
             WebElement nextButton = driver.findElement(By.cssSelector(".a-pagination .a-last a"));
             if (nextButton.isEnabled()) {
+                pageArchive.capture(driver);
+                networkTimingRecorder.beginNavigation("next-page", currentYear, currentPage + 1, null);
                 nextButton.click();
                 wait.until(ExpectedConditions.stalenessOf(nextButton));
                 return true;
@@ -839,7 +1573,46 @@ public class AmazonListBuilderService {
         return false;
     }
 
+    /**
+     * Keeps the evidence of a failure: a screenshot and DOM snapshot of the page, and the flight
+     * recording leading up to it.
+     */
+    private void recordFailure(String reason) {
+        diagnosticsCapture.captureFailure(driver, reason);
+        flightRecorderSupport.dump(reason);
+    }
+
+    private void markNavigation(String action, String item) {
+        pageArchive.capture(driver);
+        diagnosticsCapture.sample(driver, "before_" + action);
+        networkTimingRecorder.beginNavigation(action, currentYear, currentPage, item);
+    }
+
     private void cleanup() {
+        if (productPrefetcher != null) {
+            try {
+                productPrefetcher.closeAll();
+            } catch (Exception e) {
+                logger.warn("Failed to close prefetch tabs", e);
+            }
+            productPrefetcher = null;
+        }
+        if (tabScheduler != null) {
+            tabWorkers.shutdownNow();
+            try {
+                tabScheduler.close();
+            } catch (Exception e) {
+                logger.warn("Failed to close worker tabs", e);
+            }
+            tabScheduler = null;
+            tabWorkers = null;
+        }
+        networkTimingRecorder.finish();
+        flightRecorderSupport.stop();
+        pageArchive.capture(driver);
+        pageArchive.close();
+        diagnosticsCapture.close();
+        replayServer.stop();
         if (driver != null) {
             logger.info("Closing WebDriver");
             driver.quit();
@@ -7,9 +7,22 @@ public class AmazonProperties {
     private String username;
     private String password;
     private String chromeDriverPath;
+    private String listId = "1HWDU7LVZZB5K"; // Target list, as in the atwl-list-name-<id> dropdown entry
 
     private int waitTimeoutSeconds = 10; // Default value of 10 seconds
 
+    private final Intervention intervention = new Intervention();
+    private final Timing timing = new Timing();
+    private final FlightRecorder flightRecorder = new FlightRecorder();
+    private final Archive archive = new Archive();
+    private final Sharding shard = new Sharding();
+    private final Prefetch prefetch = new Prefetch();
+    private final Reconcile reconcile = new Reconcile();
+    private final NegativeCache negativeCache = new NegativeCache();
+    private final Tabs tabs = new Tabs();
+    private final Control control = new Control();
+    private final Diagnostics diagnostics = new Diagnostics();
+
     // Getters and setters
     public String getUsername() {
         return username;
@@ -35,6 +48,14 @@ public class AmazonProperties {
         this.chromeDriverPath = chromeDriverPath;
     }
 
+    public String getListId() {
+        return listId;
+    }
+
+    public void setListId(String listId) {
+        this.listId = listId;
+    }
+
     // Existing getters and setters...
 
     public int getWaitTimeoutSeconds() {
@@ -44,4 +65,468 @@ public class AmazonProperties {
     public void setWaitTimeoutSeconds(int waitTimeoutSeconds) {
         this.waitTimeoutSeconds = waitTimeoutSeconds;
     }
+
+    public Intervention getIntervention() {
+        return intervention;
+    }
+
+    public static class Intervention {
+        private String notifier = "console"; // console, file or webhook
+        private int timeoutSeconds = 300;
+        private long pollIntervalMillis = 1000;
+        private String dropDirectory = "interventions";
+        private String webhookUrl;
+
+        public String getNotifier() {
+            return notifier;
+        }
+
+        public void setNotifier(String notifier) {
+            this.notifier = notifier;
+        }
+
+        public int getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(int timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public String getDropDirectory() {
+            return dropDirectory;
+        }
+
+        public void setDropDirectory(String dropDirectory) {
+            this.dropDirectory = dropDirectory;
+        }
+
+        public String getWebhookUrl() {
+            return webhookUrl;
+        }
+
+        public void setWebhookUrl(String webhookUrl) {
+            this.webhookUrl = webhookUrl;
+        }
+    }
+
+    public Timing getTiming() {
+        return timing;
+    }
+
+    public static class Timing {
+        private boolean enabled = false;
+        private String reportDirectory = "timing-reports";
+        private int topDomains = 5; // Heaviest domains listed per navigation
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getReportDirectory() {
+            return reportDirectory;
+        }
+
+        public void setReportDirectory(String reportDirectory) {
+            this.reportDirectory = reportDirectory;
+        }
+
+        public int getTopDomains() {
+            return topDomains;
+        }
+
+        public void setTopDomains(int topDomains) {
+            this.topDomains = topDomains;
+        }
+    }
+
+    public FlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
+    public static class FlightRecorder {
+        private boolean enabled = false;
+        private String configuration = "default"; // JFR settings file: default or profile
+        private int maxSizeMb = 32;
+        private int maxAgeMinutes = 30;
+        private String dumpDirectory = "flight-recordings";
+        private int minDumpIntervalSeconds = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getConfiguration() {
+            return configuration;
+        }
+
+        public void setConfiguration(String configuration) {
+            this.configuration = configuration;
+        }
+
+        public int getMaxSizeMb() {
+            return maxSizeMb;
+        }
+
+        public void setMaxSizeMb(int maxSizeMb) {
+            this.maxSizeMb = maxSizeMb;
+        }
+
+        public int getMaxAgeMinutes() {
+            return maxAgeMinutes;
+        }
+
+        public void setMaxAgeMinutes(int maxAgeMinutes) {
+            this.maxAgeMinutes = maxAgeMinutes;
+        }
+
+        public String getDumpDirectory() {
+            return dumpDirectory;
+        }
+
+        public void setDumpDirectory(String dumpDirectory) {
+            this.dumpDirectory = dumpDirectory;
+        }
+
+        public int getMinDumpIntervalSeconds() {
+            return minDumpIntervalSeconds;
+        }
+
+        public void setMinDumpIntervalSeconds(int minDumpIntervalSeconds) {
+            this.minDumpIntervalSeconds = minDumpIntervalSeconds;
+        }
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public static class Archive {
+        private String mode = "off"; // off, record or replay
+        private String directory = "page-archive";
+        private int replayPort = 0; // 0 picks a free port
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getReplayPort() {
+            return replayPort;
+        }
+
+        public void setReplayPort(int replayPort) {
+            this.replayPort = replayPort;
+        }
+    }
+
+    public Sharding getShard() {
+        return shard;
+    }
+
+    public static class Sharding {
+        private boolean enabled = false;
+        private String directory = "shards"; // Shared by every node, e.g. a network mount
+        private String nodeId; // Defaults to host name and process id
+        private String runId; // Shared by the nodes of one run; required when sharding
+        private int leaseSeconds = 120;
+        private int pollIntervalSeconds = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public String getRunId() {
+            return runId;
+        }
+
+        public void setRunId(String runId) {
+            this.runId = runId;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public int getLeaseSeconds() {
+            return leaseSeconds;
+        }
+
+        public void setLeaseSeconds(int leaseSeconds) {
+            this.leaseSeconds = leaseSeconds;
+        }
+
+        public int getPollIntervalSeconds() {
+            return pollIntervalSeconds;
+        }
+
+        public void setPollIntervalSeconds(int pollIntervalSeconds) {
+            this.pollIntervalSeconds = pollIntervalSeconds;
+        }
+    }
+
+    public Prefetch getPrefetch() {
+        return prefetch;
+    }
+
+    public static class Prefetch {
+        private int depth = 0; // Product pages opened ahead in background tabs, 0 keeps the single-tab flow
+        private int memoryCapMb = 1024;
+        private int estimatedTabMb = 150; // Assumed renderer cost of one product tab
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public void setDepth(int depth) {
+            this.depth = depth;
+        }
+
+        public int getMemoryCapMb() {
+            return memoryCapMb;
+        }
+
+        public void setMemoryCapMb(int memoryCapMb) {
+            this.memoryCapMb = memoryCapMb;
+        }
+
+        public int getEstimatedTabMb() {
+            return estimatedTabMb;
+        }
+
+        public void setEstimatedTabMb(int estimatedTabMb) {
+            this.estimatedTabMb = estimatedTabMb;
+        }
+    }
+
+    public Reconcile getReconcile() {
+        return reconcile;
+    }
+
+    public static class Reconcile {
+        private boolean enabled = true;
+        private int maxRetryPasses = 1;
+        private int maxListPages = 200; // Scroll batches read from the list before giving up
+        private int pageWaitSeconds = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxRetryPasses() {
+            return maxRetryPasses;
+        }
+
+        public void setMaxRetryPasses(int maxRetryPasses) {
+            this.maxRetryPasses = maxRetryPasses;
+        }
+
+        public int getMaxListPages() {
+            return maxListPages;
+        }
+
+        public void setMaxListPages(int maxListPages) {
+            this.maxListPages = maxListPages;
+        }
+
+        public int getPageWaitSeconds() {
+            return pageWaitSeconds;
+        }
+
+        public void setPageWaitSeconds(int pageWaitSeconds) {
+            this.pageWaitSeconds = pageWaitSeconds;
+        }
+    }
+
+    public NegativeCache getNegativeCache() {
+        return negativeCache;
+    }
+
+    public static class NegativeCache {
+        private boolean enabled = true;
+        private String file = "negative-asin-cache.properties";
+        private int ttlDays = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public int getTtlDays() {
+            return ttlDays;
+        }
+
+        public void setTtlDays(int ttlDays) {
+            this.ttlDays = ttlDays;
+        }
+    }
+
+    public Tabs getTabs() {
+        return tabs;
+    }
+
+    public static class Tabs {
+        private int workers = 1; // Logical workers sharing the browser, one tab each; 1 keeps the single-tab flow
+        private int loadTimeoutSeconds = 40;
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getLoadTimeoutSeconds() {
+            return loadTimeoutSeconds;
+        }
+
+        public void setLoadTimeoutSeconds(int loadTimeoutSeconds) {
+            this.loadTimeoutSeconds = loadTimeoutSeconds;
+        }
+    }
+
+    public Control getControl() {
+        return control;
+    }
+
+    public static class Control {
+        private boolean enabled = false;
+        private int port = 8765; // Bound to localhost only
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public static class Diagnostics {
+        private boolean enabled = true;
+        private String directory = "diagnostics";
+        private double sampleRate = 0.0; // Fraction of navigations captured; failures are always captured
+        private boolean includeDom = true;
+        private int queueCapacity = 8;
+        private int maxDiskMb = 256;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public boolean isIncludeDom() {
+            return includeDom;
+        }
+
+        public void setIncludeDom(boolean includeDom) {
+            this.includeDom = includeDom;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxDiskMb() {
+            return maxDiskMb;
+        }
+
+        public void setMaxDiskMb(int maxDiskMb) {
+            this.maxDiskMb = maxDiskMb;
+        }
+    }
 }
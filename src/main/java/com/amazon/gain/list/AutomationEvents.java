@@ -0,0 +1,128 @@
+package com.amazon.gain.list;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for each automation step. They cost next to nothing when no
+ * recording is running, and line up with GC and thread events in JDK Mission Control when one is.
+ * Timed events are wrapped in {@code begin()}/{@code commit()} so the duration is recorded.
+ */
+public final class AutomationEvents {
+    private static final String CATEGORY = "Amazon List Builder";
+
+    private AutomationEvents() {
+    }
+
+    @Name("com.amazon.gain.list.Login")
+    @Label("Login")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Login extends Event {
+    }
+
+    @Name("com.amazon.gain.list.YearSelect")
+    @Label("Year Select")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class YearSelect extends Event {
+        @Label("Year")
+        public String year;
+
+        @Label("Attempts")
+        public int attempts;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("com.amazon.gain.list.PageLoad")
+    @Label("Order Page Load")
+    @Description("Waiting for the order cards of one order-history page")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class PageLoad extends Event {
+        @Label("Year")
+        public String year;
+
+        @Label("Page Number")
+        public int pageNumber;
+
+        @Label("Orders Found")
+        public int orders;
+    }
+
+    @Name("com.amazon.gain.list.OrderExtracted")
+    @Label("Order Extracted")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class OrderExtracted extends Event {
+        @Label("Year")
+        public String year;
+
+        @Label("Page Number")
+        public int pageNumber;
+
+        @Label("Items")
+        public int items;
+    }
+
+    @Name("com.amazon.gain.list.ItemAdded")
+    @Label("Item Added")
+    @Description("From clicking the product to being back on the order page")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class ItemAdded extends Event {
+        @Label("Year")
+        public String year;
+
+        @Label("Page Number")
+        public int pageNumber;
+
+        @Label("ASIN")
+        public String asin;
+    }
+
+    @Name("com.amazon.gain.list.Retry")
+    @Label("Retry")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Retry extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Attempt")
+        public int attempt;
+
+        @Label("Reason")
+        public String reason;
+    }
+
+    @Name("com.amazon.gain.list.StaleElement")
+    @Label("Stale Element")
+    @Category(CATEGORY)
+    public static class StaleElement extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Year")
+        public String year;
+
+        @Label("Page Number")
+        public int pageNumber;
+    }
+
+    @Name("com.amazon.gain.list.ClickFallback")
+    @Label("JavaScript Click Fallback")
+    @Description("A native click was intercepted and retried through JavaScript")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class ClickFallback extends Event {
+        @Label("Element")
+        public String element;
+    }
+}
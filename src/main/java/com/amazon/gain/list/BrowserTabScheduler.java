@@ -0,0 +1,128 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WindowType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Lets several logical workers share one browser, each on its own tab.
+ * <p>
+ * A WebDriver session can only talk to one window at a time, so every call goes through
+ * {@link #withTab}, which holds a per-browser lock and switches to the worker's tab first.
+ * Navigation is started with a script instead of {@code driver.get}, so it returns right away, and
+ * {@link #awaitLoaded} polls without holding the lock in between.
+ * <p>
+ * ChromeDriver still waits for a navigating tab to reach its page load strategy before running a
+ * command on it, and that wait happens inside the lock. The service therefore uses the eager
+ * strategy with tab workers: fetching and parsing a document is serialized, while the rest of
+ * each page load (images, scripts, late requests) overlaps with work on the other tabs.
+ */
+class BrowserTabScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(BrowserTabScheduler.class);
+    private static final String STALE_MARKER = "data-tab-scheduler-stale";
+    private static final long POLL_MILLIS = 200;
+
+    private final WebDriver driver;
+    private final String ordersHandle;
+    private final List<String> workerHandles = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    BrowserTabScheduler(WebDriver driver, int workers) {
+        this.driver = driver;
+        this.ordersHandle = driver.getWindowHandle();
+        for (int i = 0; i < workers; i++) {
+            driver.switchTo().newWindow(WindowType.TAB);
+            workerHandles.add(driver.getWindowHandle());
+        }
+        driver.switchTo().window(ordersHandle);
+        logger.info("Opened " + workers + " worker tabs");
+    }
+
+    List<String> getWorkerHandles() {
+        return List.copyOf(workerHandles);
+    }
+
+    /**
+     * Runs {@code action} with the browser switched to {@code handle}, holding the browser lock.
+     */
+    <T> T withTab(String handle, Function<WebDriver, T> action) {
+        lock.lock();
+        try {
+            driver.switchTo().window(handle);
+            return action.apply(driver);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts loading {@code url} in the tab and returns without waiting for it.
+     */
+    void navigate(String handle, String url) {
+        withTab(handle, wd -> ((JavascriptExecutor) wd).executeScript(
+                "document.documentElement.setAttribute('" + STALE_MARKER + "', '1');"
+                        + "window.location.href = arguments[0];", url));
+    }
+
+    /**
+     * Waits until the page started by {@link #navigate} has loaded. Holds the lock only while
+     * checking, so other workers can use the browser in between.
+     */
+    void awaitLoaded(String handle, Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (true) {
+            boolean loaded = withTab(handle, wd -> Boolean.TRUE.equals(((JavascriptExecutor) wd).executeScript(
+                    "return document.readyState === 'complete'"
+                            + " && !document.documentElement.hasAttribute('" + STALE_MARKER + "');")));
+            if (loaded) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new TimeoutException("Tab " + handle + " did not finish loading within " + timeout);
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TimeoutException("Interrupted while waiting for tab " + handle, e);
+            }
+        }
+    }
+
+    /**
+     * Closes the worker tabs and goes back to the order-history tab.
+     */
+    void close() {
+        lock.lock();
+        try {
+            for (String handle : workerHandles) {
+                try {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                } catch (Exception e) {
+                    logger.debug("Worker tab " + handle + " already closed", e);
+                }
+            }
+            workerHandles.clear();
+            driver.switchTo().window(ordersHandle);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Switches back to the order-history tab, waiting for any worker still using the browser.
+     */
+    void returnToOrders() {
+        withTab(ordersHandle, wd -> null);
+    }
+}
@@ -0,0 +1,9 @@
+package com.amazon.gain.list;
+
+/**
+ * Kinds of pages that need a human before the automation can carry on.
+ */
+public enum ChallengeType {
+    CAPTCHA,
+    SECURITY_CODE
+}
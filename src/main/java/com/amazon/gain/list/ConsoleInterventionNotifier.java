@@ -0,0 +1,19 @@
+package com.amazon.gain.list;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "amazon.intervention", name = "notifier", havingValue = "console", matchIfMissing = true)
+public class ConsoleInterventionNotifier implements InterventionNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(ConsoleInterventionNotifier.class);
+
+    @Override
+    public void notify(InterventionRequest request) {
+        logger.warn("Session " + request.sessionId() + " is waiting on a " + request.type() + " page: " + request.pageUrl());
+        System.out.println("ATTENTION: Session " + request.sessionId() + " needs a " + request.type() + " solved in its browser window.");
+        System.out.println("It resumes on its own once the page clears.");
+    }
+}
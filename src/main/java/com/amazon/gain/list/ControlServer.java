@@ -0,0 +1,156 @@
+package com.amazon.gain.list;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Small HTTP surface on localhost for watching and steering a long run.
+ * <ul>
+ *     <li>{@code GET /status}: position, throughput, queue depths, ETA and per-session state</li>
+ *     <li>{@code POST /pause}, {@code POST /resume}</li>
+ *     <li>{@code POST /throttle?delayMs=..&workers=..}: either parameter may be left out</li>
+ *     <li>{@code POST /cancel}: stops after the items in progress and hands back unfinished work</li>
+ *     <li>{@code POST /intervention/resolve?session=..}: releases a session parked on a challenge</li>
+ * </ul>
+ */
+@Component
+public class ControlServer {
+    private static final Logger logger = LoggerFactory.getLogger(ControlServer.class);
+
+    private final AmazonProperties amazonProperties;
+    private final RunControl runControl;
+    private final HumanInterventionService humanInterventionService;
+    private final Json json = new Json();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ControlServer(AmazonProperties amazonProperties, RunControl runControl,
+                         HumanInterventionService humanInterventionService) {
+        this.amazonProperties = amazonProperties;
+        this.runControl = runControl;
+        this.humanInterventionService = humanInterventionService;
+    }
+
+    /**
+     * Starts the server if {@code amazon.control.enabled} is set.
+     */
+    public synchronized void start() throws IOException {
+        if (server != null || !amazonProperties.getControl().isEnabled()) {
+            return;
+        }
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                amazonProperties.getControl().getPort());
+        server = HttpServer.create(address, 0);
+        server.createContext("/status", exchange -> handle(exchange, "GET", this::status));
+        server.createContext("/pause", exchange -> handle(exchange, "POST", query -> result(runControl.pause())));
+        server.createContext("/resume", exchange -> handle(exchange, "POST", query -> result(runControl.resume())));
+        server.createContext("/cancel", exchange -> handle(exchange, "POST", query -> result(runControl.cancel())));
+        server.createContext("/throttle", exchange -> handle(exchange, "POST", this::throttle));
+        server.createContext("/intervention/resolve", exchange -> handle(exchange, "POST", this::resolveIntervention));
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "control-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Control endpoint listening on " + getBaseUrl());
+    }
+
+    public synchronized String getBaseUrl() {
+        return server == null ? null : "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private Map<String, Object> status(Map<String, String> query) {
+        Map<String, Object> status = runControl.snapshot();
+        status.put("parkedSessions", humanInterventionService.getParkedSessions());
+        return status;
+    }
+
+    private Map<String, Object> throttle(Map<String, String> query) {
+        Long delayMillis = query.containsKey("delayMs") ? Long.valueOf(query.get("delayMs")) : null;
+        Integer workers = query.containsKey("workers") ? Integer.valueOf(query.get("workers")) : null;
+        runControl.throttle(delayMillis, workers);
+        return runControl.snapshot();
+    }
+
+    private Map<String, Object> resolveIntervention(Map<String, String> query) {
+        String session = query.get("session");
+        if (session == null || session.isBlank()) {
+            throw new IllegalArgumentException("session is required");
+        }
+        return result(humanInterventionService.resolve(session));
+    }
+
+    private static Map<String, Object> result(boolean changed) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("changed", changed);
+        return result;
+    }
+
+    private void handle(HttpExchange exchange, String method, Action action) throws IOException {
+        try (exchange) {
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            int status = 200;
+            Map<String, Object> body;
+            try {
+                body = action.apply(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = Map.of("error", String.valueOf(e.getMessage()));
+            }
+            byte[] bytes = json.toJson(body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private interface Action {
+        Map<String, Object> apply(Map<String, String> query);
+    }
+}
@@ -0,0 +1,22 @@
+package com.amazon.gain.list;
+
+/**
+ * Why a product page could not be added to the list, and how many times it has to be seen before
+ * the negative cache trusts it.
+ */
+public enum DeadProductReason {
+    SORRY_PAGE(1),
+    LISTING_REMOVED(1),
+    // A slow buy box looks the same as a missing one, so one sighting is not enough
+    NO_ADD_TO_LIST_BUTTON(2);
+
+    private final int sightingsNeeded;
+
+    DeadProductReason(int sightingsNeeded) {
+        this.sightingsNeeded = sightingsNeeded;
+    }
+
+    public int getSightingsNeeded() {
+        return sightingsNeeded;
+    }
+}
@@ -0,0 +1,243 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Screenshots and DOM snapshots for debugging, taken on failures and for a sample of navigations.
+ * <p>
+ * The worker that hits a problem only grabs the raw bytes from the browser and puts them on a
+ * bounded queue; a background thread writes them out. DOM snapshots are gzipped, screenshots are
+ * kept as PNG, which is already compressed. When the queue is full the capture is skipped before
+ * the browser is asked for anything, so a slow disk never holds up the run. The oldest artifacts
+ * are deleted once the directory grows past its cap.
+ */
+@Component
+public class DiagnosticsCapture {
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosticsCapture.class);
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    record Capture(String reason, Instant takenAt, byte[] screenshot, String dom) {
+    }
+
+    private record Artifact(Path path, long size) {
+    }
+
+    private final AmazonProperties amazonProperties;
+    private final Clock clock;
+    private final BlockingQueue<Capture> queue;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Deque<Artifact> artifacts = new ArrayDeque<>(); // oldest first, guarded by itself
+    private long artifactBytes;
+    private boolean scanned;
+    private Writer writer;
+
+    @Autowired
+    public DiagnosticsCapture(AmazonProperties amazonProperties) {
+        this(amazonProperties, Clock.systemUTC());
+    }
+
+    DiagnosticsCapture(AmazonProperties amazonProperties, Clock clock) {
+        this.amazonProperties = amazonProperties;
+        this.clock = clock;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, amazonProperties.getDiagnostics().getQueueCapacity()));
+    }
+
+    /**
+     * Captures the page after something went wrong.
+     */
+    public void captureFailure(WebDriver driver, String reason) {
+        capture(driver, reason);
+    }
+
+    /**
+     * Captures the page for a configured fraction of calls.
+     */
+    public void sample(WebDriver driver, String reason) {
+        double rate = amazonProperties.getDiagnostics().getSampleRate();
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            capture(driver, reason);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes out what is still queued, waiting a few seconds at most, and stops the writer.
+     */
+    public void close() {
+        Writer current;
+        synchronized (this) {
+            current = writer;
+            writer = null;
+        }
+        if (current == null) {
+            return;
+        }
+        current.closing = true;
+        try {
+            current.thread.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.get() > 0) {
+            logger.info("Skipped " + dropped.get() + " diagnostic captures while the writer was busy");
+        }
+    }
+
+    private void capture(WebDriver driver, String reason) {
+        AmazonProperties.Diagnostics settings = amazonProperties.getDiagnostics();
+        if (!settings.isEnabled() || driver == null) {
+            return;
+        }
+        if (queue.remainingCapacity() == 0) {
+            // Writer is behind; don't pay for a capture that would be dropped anyway
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            String dom = settings.isIncludeDom() ? driver.getPageSource() : null;
+            enqueue(new Capture(reason, clock.instant(), screenshot, dom));
+        } catch (Exception e) {
+            logger.warn("Could not capture diagnostics for " + reason, e);
+        }
+    }
+
+    void enqueue(Capture capture) {
+        startWriter();
+        if (!queue.offer(capture)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private synchronized void startWriter() {
+        if (writer == null) {
+            writer = new Writer();
+            writer.thread.start();
+        }
+    }
+
+    private void drain(Writer self) {
+        while (true) {
+            Capture capture;
+            try {
+                capture = queue.poll(250, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (capture == null) {
+                if (self.closing) {
+                    return;
+                }
+                continue;
+            }
+            write(capture);
+        }
+    }
+
+    private void write(Capture capture) {
+        AmazonProperties.Diagnostics settings = amazonProperties.getDiagnostics();
+        Path directory = Paths.get(settings.getDirectory());
+        String baseName = FILE_TIME.format(capture.takenAt()) + "-" + sequence.incrementAndGet() + "-"
+                + capture.reason().replaceAll("[^A-Za-z0-9_-]", "_");
+        synchronized (artifacts) {
+            try {
+                Files.createDirectories(directory);
+                scanExisting(directory);
+                Path screenshot = directory.resolve(baseName + ".png");
+                Files.write(screenshot, capture.screenshot());
+                track(screenshot);
+                if (capture.dom() != null) {
+                    Path dom = directory.resolve(baseName + ".html.gz");
+                    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(dom))) {
+                        out.write(capture.dom().getBytes(StandardCharsets.UTF_8));
+                    }
+                    track(dom);
+                }
+                logger.info("Saved diagnostics: " + screenshot);
+                evict(settings.getMaxDiskMb() * 1024L * 1024L);
+            } catch (IOException e) {
+                logger.warn("Failed to write diagnostics " + baseName, e);
+            }
+        }
+    }
+
+    /**
+     * Picks up artifacts left by earlier runs, so they count against the cap too.
+     */
+    private void scanExisting(Path directory) throws IOException {
+        if (scanned) {
+            return;
+        }
+        scanned = true;
+        List<Path> existing;
+        try (Stream<Path> files = Files.list(directory)) {
+            existing = files.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing((Path path) -> path.toFile().lastModified()).thenComparing(Path::toString))
+                    .toList();
+        }
+        for (Path path : existing) {
+            track(path);
+        }
+    }
+
+    private void track(Path path) throws IOException {
+        long size = Files.size(path);
+        artifacts.addLast(new Artifact(path, size));
+        artifactBytes += size;
+    }
+
+    private void evict(long capBytes) {
+        while (artifactBytes > capBytes && !artifacts.isEmpty()) {
+            Artifact oldest = artifacts.removeFirst();
+            artifactBytes -= oldest.size();
+            try {
+                Files.deleteIfExists(oldest.path());
+            } catch (IOException e) {
+                logger.warn("Failed to delete old diagnostics " + oldest.path(), e);
+            }
+        }
+    }
+
+    private class Writer {
+        final Thread thread;
+        volatile boolean closing;
+
+        Writer() {
+            thread = new Thread(() -> drain(this), "diagnostics-writer");
+            thread.setDaemon(true);
+        }
+    }
+}
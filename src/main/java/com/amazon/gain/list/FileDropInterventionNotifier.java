@@ -0,0 +1,58 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Drops one JSON file per request into a directory, for headless or scheduled runs
+ * where a watcher script (or a person) picks them up. The file is deleted once the session
+ * is no longer parked, so the directory only lists open requests.
+ */
+@Component
+@ConditionalOnProperty(prefix = "amazon.intervention", name = "notifier", havingValue = "file")
+public class FileDropInterventionNotifier implements InterventionNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(FileDropInterventionNotifier.class);
+
+    private final AmazonProperties amazonProperties;
+
+    public FileDropInterventionNotifier(AmazonProperties amazonProperties) {
+        this.amazonProperties = amazonProperties;
+    }
+
+    @Override
+    public void notify(InterventionRequest request) {
+        Path directory = Paths.get(amazonProperties.getIntervention().getDropDirectory());
+        Path file = dropFile(request);
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(file, new Json().toJson(request.toMap()), StandardCharsets.UTF_8);
+            logger.warn("Intervention request written to " + file);
+        } catch (IOException e) {
+            logger.error("Failed to write intervention request " + file, e);
+        }
+    }
+
+    @Override
+    public void closed(InterventionRequest request) {
+        Path file = dropFile(request);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete intervention request " + file, e);
+        }
+    }
+
+    private Path dropFile(InterventionRequest request) {
+        return Paths.get(amazonProperties.getIntervention().getDropDirectory())
+                .resolve(request.sessionId() + "-" + request.type().name().toLowerCase() + ".json");
+    }
+}
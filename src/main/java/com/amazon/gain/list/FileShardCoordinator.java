@@ -0,0 +1,318 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * {@link ShardCoordinator} kept in one JSON file per run, guarded by an OS file lock. Point
+ * {@code amazon.shard.directory} at a shared mount to coordinate several hosts; on one host it
+ * works as is. Every operation is a locked read-modify-write of the whole file, which is fine
+ * for a few thousand shards and ASINs.
+ * <p>
+ * Nodes share a run by using the same {@code amazon.shard.run-id}. A new run id starts from an
+ * empty file, so a finished run does not make the next scheduled run think it has nothing to do.
+ */
+@Component
+public class FileShardCoordinator implements ShardCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(FileShardCoordinator.class);
+    private static final String PENDING = "PENDING";
+    private static final String LEASED = "LEASED";
+    private static final String DONE = "DONE";
+    private static final String CLAIMED = "CLAIMED";
+    private static final String ADDED = "ADDED";
+
+    private final AmazonProperties amazonProperties;
+    private final Clock clock;
+    private final Json json = new Json();
+
+    @Autowired
+    public FileShardCoordinator(AmazonProperties amazonProperties) {
+        this(amazonProperties, Clock.systemUTC());
+    }
+
+    FileShardCoordinator(AmazonProperties amazonProperties, Clock clock) {
+        this.amazonProperties = amazonProperties;
+        this.clock = clock;
+    }
+
+    @Override
+    public void publish(Collection<Shard> shards) {
+        update(state -> {
+            int added = 0;
+            for (Shard shard : shards) {
+                if (!state.shards.containsKey(shard.key())) {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("status", PENDING);
+                    state.shards.put(shard.key(), entry);
+                    added++;
+                }
+            }
+            if (added > 0) {
+                logger.info("Published " + added + " new shards");
+            }
+            state.published = true;
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<ShardLease> claim(String nodeId) {
+        return update(state -> {
+            Instant now = clock.instant();
+            for (Map.Entry<String, Map<String, Object>> entry : state.shards.entrySet()) {
+                Map<String, Object> shard = entry.getValue();
+                boolean expired = LEASED.equals(shard.get("status")) && expiresAt(shard).isBefore(now);
+                if (PENDING.equals(shard.get("status")) || expired) {
+                    if (expired) {
+                        logger.warn("Lease on shard " + entry.getKey() + " held by " + shard.get("owner") + " expired. Reassigning to " + nodeId);
+                        dropPendingClaims(state, (String) shard.get("leaseId"));
+                    }
+                    ShardLease lease = new ShardLease(Shard.fromKey(entry.getKey()), nodeId,
+                            UUID.randomUUID().toString(), now.plus(leaseDuration()));
+                    writeLease(shard, lease);
+                    return Optional.of(lease);
+                }
+            }
+            return Optional.<ShardLease>empty();
+        });
+    }
+
+    @Override
+    public Optional<ShardLease> renew(ShardLease lease) {
+        return update(state -> {
+            Map<String, Object> shard = state.shards.get(lease.shard().key());
+            if (!holds(shard, lease)) {
+                return Optional.<ShardLease>empty();
+            }
+            ShardLease renewed = new ShardLease(lease.shard(), lease.nodeId(), lease.leaseId(), clock.instant().plus(leaseDuration()));
+            writeLease(shard, renewed);
+            return Optional.of(renewed);
+        });
+    }
+
+    @Override
+    public void complete(ShardLease lease) {
+        update(state -> {
+            Map<String, Object> shard = state.shards.get(lease.shard().key());
+            if (!holds(shard, lease)) {
+                logger.warn("Shard " + lease.shard().key() + " finished by " + lease.nodeId() + " after its lease was lost");
+                return null;
+            }
+            dropPendingClaims(state, lease.leaseId());
+            shard.put("status", DONE);
+            shard.put("completedBy", lease.nodeId());
+            shard.put("completedAt", clock.instant().toString());
+            shard.remove("leaseId");
+            shard.remove("expiresAt");
+            return null;
+        });
+    }
+
+    @Override
+    public void release(ShardLease lease) {
+        update(state -> {
+            Map<String, Object> shard = state.shards.get(lease.shard().key());
+            if (holds(shard, lease)) {
+                dropPendingClaims(state, lease.leaseId());
+                shard.put("status", PENDING);
+                shard.remove("owner");
+                shard.remove("leaseId");
+                shard.remove("expiresAt");
+                logger.info("Released shard " + lease.shard().key());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean isFinished() {
+        return update(state -> state.published
+                && state.shards.values().stream().allMatch(shard -> DONE.equals(shard.get("status"))));
+    }
+
+    @Override
+    public int remaining() {
+        return update(state -> (int) state.shards.values().stream()
+                .filter(shard -> !DONE.equals(shard.get("status")))
+                .count());
+    }
+
+    @Override
+    public boolean claimAsin(String asin, ShardLease lease) {
+        return update(state -> {
+            Instant now = clock.instant();
+            if (!holdsLive(state, lease.shard().key(), lease.leaseId(), now)) {
+                logger.warn("Not claiming " + asin + ": the lease on shard " + lease.shard().key() + " was lost");
+                return false;
+            }
+            Map<String, Object> claim = state.asins.get(asin);
+            if (claim != null) {
+                if (ADDED.equals(claim.get("status"))) {
+                    return false;
+                }
+                if (holdsLive(state, (String) claim.get("shard"), (String) claim.get("leaseId"), now)) {
+                    return lease.leaseId().equals(claim.get("leaseId"));
+                }
+                logger.info("Claim on " + asin + " by " + claim.get("owner") + " was lost with its lease. Taking it over.");
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("status", CLAIMED);
+            entry.put("owner", lease.nodeId());
+            entry.put("leaseId", lease.leaseId());
+            entry.put("shard", lease.shard().key());
+            state.asins.put(asin, entry);
+            return true;
+        });
+    }
+
+    @Override
+    public void markAsinAdded(String asin, ShardLease lease) {
+        update(state -> {
+            Map<String, Object> claim = state.asins.get(asin);
+            if (claim == null || !lease.leaseId().equals(claim.get("leaseId"))) {
+                logger.warn("Marking " + asin + " as added although " + lease.nodeId() + " no longer holds its claim");
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("status", ADDED);
+            entry.put("owner", lease.nodeId());
+            entry.put("addedAt", clock.instant().toString());
+            state.asins.put(asin, entry);
+            return null;
+        });
+    }
+
+    @Override
+    public void releaseAsin(String asin, ShardLease lease) {
+        update(state -> {
+            Map<String, Object> claim = state.asins.get(asin);
+            if (claim != null && CLAIMED.equals(claim.get("status")) && lease.leaseId().equals(claim.get("leaseId"))) {
+                state.asins.remove(asin);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * The run this node belongs to, from {@code amazon.shard.run-id}. There is no default: nodes
+     * that guessed different ids would each work through the whole history.
+     */
+    String runId() {
+        String configured = amazonProperties.getShard().getRunId();
+        if (configured == null || configured.isBlank()) {
+            throw new IllegalStateException("amazon.shard.run-id must be set when sharding is enabled");
+        }
+        return configured.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static void dropPendingClaims(State state, String leaseId) {
+        if (leaseId != null) {
+            state.asins.values().removeIf(claim -> CLAIMED.equals(claim.get("status")) && leaseId.equals(claim.get("leaseId")));
+        }
+    }
+
+    private static boolean holdsLive(State state, String shardKey, String leaseId, Instant now) {
+        Map<String, Object> shard = shardKey == null ? null : state.shards.get(shardKey);
+        return shard != null && LEASED.equals(shard.get("status")) && leaseId != null
+                && leaseId.equals(shard.get("leaseId")) && !expiresAt(shard).isBefore(now);
+    }
+
+    private Duration leaseDuration() {
+        return Duration.ofSeconds(amazonProperties.getShard().getLeaseSeconds());
+    }
+
+    private static boolean holds(Map<String, Object> shard, ShardLease lease) {
+        return shard != null && LEASED.equals(shard.get("status")) && lease.leaseId().equals(shard.get("leaseId"));
+    }
+
+    private static void writeLease(Map<String, Object> shard, ShardLease lease) {
+        shard.put("status", LEASED);
+        shard.put("owner", lease.nodeId());
+        shard.put("leaseId", lease.leaseId());
+        shard.put("expiresAt", lease.expiresAt().toString());
+    }
+
+    private static Instant expiresAt(Map<String, Object> shard) {
+        Object expiresAt = shard.get("expiresAt");
+        return expiresAt == null ? Instant.EPOCH : Instant.parse(expiresAt.toString());
+    }
+
+    /**
+     * Runs one locked read-modify-write on the state file. The JVM-level lock is needed because
+     * file locks are held per process, not per thread.
+     */
+    private synchronized <T> T update(Function<State, T> change) {
+        Path directory = Paths.get(amazonProperties.getShard().getDirectory());
+        Path stateFile = directory.resolve("run-" + runId() + ".json");
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel lockChannel = FileChannel.open(directory.resolve("shards.lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    State state = read(stateFile);
+                    T result = change.apply(state);
+                    write(stateFile, state);
+                    return result;
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to update shard state in " + stateFile, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private State read(Path stateFile) throws IOException {
+        State state = new State();
+        if (!Files.exists(stateFile)) {
+            return state;
+        }
+        Map<String, Object> raw = json.toType(Files.readString(stateFile, StandardCharsets.UTF_8), Json.MAP_TYPE);
+        state.published = Boolean.TRUE.equals(raw.get("published"));
+        ((Map<String, Map<String, Object>>) raw.getOrDefault("shards", Map.of()))
+                .forEach((key, shard) -> state.shards.put(key, new LinkedHashMap<>(shard)));
+        ((Map<String, Map<String, Object>>) raw.getOrDefault("asins", Map.of()))
+                .forEach((asin, claim) -> state.asins.put(asin, new LinkedHashMap<>(claim)));
+        return state;
+    }
+
+    private void write(Path stateFile, State state) throws IOException {
+        Map<String, Object> raw = new LinkedHashMap<>();
+        raw.put("published", state.published);
+        raw.put("shards", state.shards);
+        raw.put("asins", state.asins);
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        Files.writeString(temp, json.toJson(raw), StandardCharsets.UTF_8);
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static class State {
+        final Map<String, Map<String, Object>> shards = new LinkedHashMap<>();
+        final Map<String, Map<String, Object>> asins = new LinkedHashMap<>();
+        boolean published;
+    }
+}
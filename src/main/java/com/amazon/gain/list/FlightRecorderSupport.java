@@ -0,0 +1,103 @@
+package com.amazon.gain.list;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Keeps a small continuous flight recording (a ring buffer capped by size and age) while the
+ * run is going, and dumps it to disk when something fails. Failures often come in bursts, so
+ * dumps closer together than {@code amazon.flight-recorder.min-dump-interval-seconds} are skipped;
+ * the next dump still covers them, since the ring buffer holds the last few minutes.
+ */
+@Component
+public class FlightRecorderSupport {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderSupport.class);
+    private static final DateTimeFormatter DUMP_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final AmazonProperties amazonProperties;
+    private final Clock clock;
+    private Recording recording;
+    private Instant lastDump;
+
+    @Autowired
+    public FlightRecorderSupport(AmazonProperties amazonProperties) {
+        this(amazonProperties, Clock.systemDefaultZone());
+    }
+
+    FlightRecorderSupport(AmazonProperties amazonProperties, Clock clock) {
+        this.amazonProperties = amazonProperties;
+        this.clock = clock;
+    }
+
+    public synchronized void start() {
+        AmazonProperties.FlightRecorder settings = amazonProperties.getFlightRecorder();
+        if (!settings.isEnabled() || recording != null) {
+            return;
+        }
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings.getConfiguration()));
+            recording.setName("amazon-list-builder");
+            recording.setToDisk(true);
+            recording.setMaxSize(settings.getMaxSizeMb() * 1024L * 1024L);
+            recording.setMaxAge(Duration.ofMinutes(settings.getMaxAgeMinutes()));
+            recording.start();
+            lastDump = null;
+            logger.info("Continuous flight recording started (max " + settings.getMaxSizeMb() + " MB, "
+                    + settings.getMaxAgeMinutes() + " min)");
+        } catch (IOException | ParseException | RuntimeException e) {
+            logger.error("Failed to start flight recording", e);
+            recording = null;
+        }
+    }
+
+    /**
+     * Writes the current ring buffer to {@code amazon.flight-recorder.dump-directory}. Returns
+     * false if nothing was written.
+     */
+    public synchronized boolean dump(String reason) {
+        if (recording == null) {
+            return false;
+        }
+        AmazonProperties.FlightRecorder settings = amazonProperties.getFlightRecorder();
+        Instant now = clock.instant();
+        if (lastDump != null && now.isBefore(lastDump.plusSeconds(settings.getMinDumpIntervalSeconds()))) {
+            logger.debug("Skipping flight recording dump for " + reason + "; the last one was moments ago");
+            return false;
+        }
+        Path directory = Paths.get(settings.getDumpDirectory());
+        Path file = directory.resolve(reason.replaceAll("[^A-Za-z0-9_-]", "_") + "-"
+                + LocalDateTime.now(clock).format(DUMP_NAME_FORMAT) + ".jfr");
+        try {
+            Files.createDirectories(directory);
+            recording.dump(file);
+            lastDump = now;
+            logger.info("Flight recording dumped to " + file);
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to dump flight recording to " + file, e);
+            return false;
+        }
+    }
+
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
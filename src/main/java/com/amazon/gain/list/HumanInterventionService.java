@@ -0,0 +1,143 @@
+package com.amazon.gain.list;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks a single browser session while a human deals with a CAPTCHA or security code page.
+ * <p>
+ * Nothing waits unless a challenge is actually on screen. When one is, only the calling
+ * session's thread is parked; it resumes as soon as the page clears or an operator resolves
+ * it (Enter on an interactive console, or {@link #resolve(String)}).
+ */
+@Service
+public class HumanInterventionService {
+    private static final Logger logger = LoggerFactory.getLogger(HumanInterventionService.class);
+
+    private final AmazonProperties amazonProperties;
+    private final InterventionNotifier notifier;
+    private final Map<String, CompletableFuture<Void>> parkedSessions = new ConcurrentHashMap<>();
+    private volatile boolean consoleReaderStarted;
+    private volatile boolean consoleReaderRunning;
+
+    public HumanInterventionService(AmazonProperties amazonProperties, InterventionNotifier notifier) {
+        this.amazonProperties = amazonProperties;
+        this.notifier = notifier;
+    }
+
+    /**
+     * Returns straight away if {@code challengePresent} is false. Otherwise notifies an operator
+     * and parks the caller until the challenge clears, is resolved manually, or the configured
+     * timeout passes.
+     *
+     * @return true if the challenge is gone when this method returns
+     */
+    public boolean awaitClearance(String sessionId, ChallengeType type, String pageUrl, BooleanSupplier challengePresent) {
+        if (!challengePresent.getAsBoolean()) {
+            return true;
+        }
+
+        AmazonProperties.Intervention settings = amazonProperties.getIntervention();
+        CompletableFuture<Void> resolved = new CompletableFuture<>();
+        parkedSessions.put(sessionId, resolved);
+        logger.info("Session " + sessionId + " parked on " + type + " page");
+        InterventionRequest request = new InterventionRequest(sessionId, type, pageUrl, Instant.now());
+        notifier.notify(request);
+        startConsoleReaderIfInteractive();
+        if (consoleReaderRunning) {
+            System.out.println("Press Enter to resume every parked session, or type a session id to resume just that one.");
+        }
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(settings.getTimeoutSeconds());
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                try {
+                    resolved.get(settings.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+                    logger.info("Session " + sessionId + " resolved by operator");
+                    return !challengePresent.getAsBoolean();
+                } catch (TimeoutException e) {
+                    // Not resolved manually yet, check the page below
+                } catch (ExecutionException e) {
+                    logger.warn("Unexpected failure while session " + sessionId + " was parked", e);
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.error("Interrupted while session " + sessionId + " was parked on " + type, e);
+                    return false;
+                }
+
+                if (!challengePresent.getAsBoolean()) {
+                    logger.info(type + " cleared for session " + sessionId + ". Resuming.");
+                    return true;
+                }
+            }
+        } finally {
+            parkedSessions.remove(sessionId, resolved);
+            notifier.closed(request);
+        }
+
+        logger.warn("Session " + sessionId + " still on " + type + " page after " + settings.getTimeoutSeconds() + " seconds");
+        return !challengePresent.getAsBoolean();
+    }
+
+    /**
+     * Wakes up a parked session. Returns false if that session is not parked.
+     */
+    public boolean resolve(String sessionId) {
+        CompletableFuture<Void> resolved = parkedSessions.get(sessionId);
+        return resolved != null && resolved.complete(null);
+    }
+
+    public Set<String> getParkedSessions() {
+        return Set.copyOf(parkedSessions.keySet());
+    }
+
+    private void startConsoleReaderIfInteractive() {
+        if (consoleReaderStarted || System.console() == null) {
+            return;
+        }
+        synchronized (this) {
+            if (consoleReaderStarted) {
+                return;
+            }
+            consoleReaderStarted = true;
+            consoleReaderRunning = true;
+        }
+
+        Thread reader = new Thread(() -> {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String sessionId = line.trim();
+                    if (sessionId.isEmpty()) {
+                        getParkedSessions().forEach(this::resolve);
+                    } else if (!resolve(sessionId)) {
+                        System.out.println("No parked session with id " + sessionId);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Console reader for interventions stopped", e);
+            } finally {
+                consoleReaderRunning = false;
+            }
+        }, "intervention-console");
+        reader.setDaemon(true);
+        reader.start();
+    }
+}
@@ -0,0 +1,17 @@
+package com.amazon.gain.list;
+
+/**
+ * Tells an operator that a session is parked on a challenge page.
+ * The implementation is picked with {@code amazon.intervention.notifier}.
+ */
+public interface InterventionNotifier {
+
+    void notify(InterventionRequest request);
+
+    /**
+     * Called once the session is no longer parked, whether the challenge cleared, an operator
+     * resolved it or the wait timed out.
+     */
+    default void closed(InterventionRequest request) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.amazon.gain.list;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single "please help" notice for one parked browser session.
+ */
+public record InterventionRequest(String sessionId, ChallengeType type, String pageUrl, Instant requestedAt) {
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("sessionId", sessionId);
+        map.put("type", type.name());
+        map.put("pageUrl", pageUrl);
+        map.put("requestedAt", requestedAt.toString());
+        return map;
+    }
+}
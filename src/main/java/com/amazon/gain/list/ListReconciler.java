@@ -0,0 +1,123 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the target list once at the end of a run and works out which submitted ASINs did not
+ * land on it. This replaces waiting for a confirmation after every single add.
+ * <p>
+ * The list page loads more items as it is scrolled. Each step is a single script call that
+ * returns every ASIN rendered so far and scrolls to the bottom, instead of one WebDriver round
+ * trip per list item.
+ */
+@Component
+public class ListReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(ListReconciler.class);
+
+    private static final String READ_AND_SCROLL_SCRIPT =
+            "var asins = [];" +
+            "document.querySelectorAll('li[data-itemid]').forEach(function (li) {" +
+            "  var params = li.getAttribute('data-reposition-action-params') || '';" +
+            "  var match = params.match(/ASIN:([A-Z0-9]{10})/);" +
+            "  if (!match) {" +
+            "    var link = li.querySelector(\"a[href*='/dp/']\");" +
+            "    match = link ? link.getAttribute('href').match(/\\/dp\\/([A-Z0-9]{10})/) : null;" +
+            "  }" +
+            "  if (match) { asins.push(match[1]); }" +
+            "});" +
+            "var end = document.getElementById('endOfListMarker') !== null;" +
+            "if (!end) { window.scrollTo(0, document.body.scrollHeight); }" +
+            "return {asins: asins, end: end, rendered: document.querySelectorAll('li[data-itemid]').length};";
+
+    /**
+     * ASINs read from the list. {@code complete} is false if reading stopped before the end of
+     * the list, in which case an ASIN that is not in {@code asins} may still be on it.
+     */
+    public record ListContents(Set<String> asins, boolean complete) {
+    }
+
+    private final AmazonProperties amazonProperties;
+
+    public ListReconciler(AmazonProperties amazonProperties) {
+        this.amazonProperties = amazonProperties;
+    }
+
+    /**
+     * Opens the list and reads every ASIN on it, up to {@code amazon.reconcile.max-list-pages}
+     * scroll batches.
+     */
+    public ListContents readList(WebDriver driver, String baseUrl) {
+        String listUrl = baseUrl + "/hz/wishlist/ls/" + amazonProperties.getListId() + "?viewType=list";
+        logger.info("Reading list contents from " + listUrl);
+        driver.get(listUrl);
+
+        AmazonProperties.Reconcile settings = amazonProperties.getReconcile();
+        WebDriverWait pageWait = new WebDriverWait(driver, Duration.ofSeconds(settings.getPageWaitSeconds()));
+        Set<String> asins = new LinkedHashSet<>();
+        boolean complete = false;
+        int page = 0;
+        for (; page < settings.getMaxListPages(); page++) {
+            Map<String, Object> result = readAndScroll(driver);
+            asins.addAll(stringList(result.get("asins")));
+            if (Boolean.TRUE.equals(result.get("end"))) {
+                complete = true;
+                break;
+            }
+            long rendered = ((Number) result.get("rendered")).longValue();
+            try {
+                // Wait for the next batch of items or the end-of-list marker, not a fixed sleep
+                pageWait.until(wd -> {
+                    Map<String, Object> state = count(wd);
+                    return Boolean.TRUE.equals(state.get("end")) || ((Number) state.get("rendered")).longValue() > rendered;
+                });
+            } catch (TimeoutException e) {
+                logger.warn("List stopped growing at " + rendered + " items without an end marker");
+                break;
+            }
+        }
+        if (page == settings.getMaxListPages()) {
+            logger.warn("Stopped reading the list after " + page + " scroll batches without reaching its end");
+        }
+        logger.info("Found " + asins.size() + " items on the list" + (complete ? "" : " before reading stopped"));
+        return new ListContents(asins, complete);
+    }
+
+    /**
+     * Submitted ASINs that are not on the list, in submission order.
+     */
+    public static Set<String> missing(Collection<String> submitted, Set<String> onList) {
+        Set<String> missing = new LinkedHashSet<>(submitted);
+        missing.removeAll(onList);
+        return missing;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readAndScroll(WebDriver driver) {
+        return (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(READ_AND_SCROLL_SCRIPT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> count(WebDriver driver) {
+        return (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(
+                "return {end: document.getElementById('endOfListMarker') !== null," +
+                " rendered: document.querySelectorAll('li[data-itemid]').length};");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> stringList(Object value) {
+        return value instanceof List ? (List<String>) value : List.of();
+    }
+}
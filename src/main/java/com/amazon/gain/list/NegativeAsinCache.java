@@ -0,0 +1,163 @@
+package com.amazon.gain.list;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Properties;
+
+/**
+ * Remembers, across runs, ASINs whose product page turned out to be dead (a "Sorry" page, a
+ * removed listing, or no add-to-list button) so they are skipped before any navigation. Entries
+ * expire after {@code amazon.negative-cache.ttl-days} so they get re-checked now and then.
+ * <p>
+ * Stored as a properties file of {@code ASIN=epochMillis,REASON}, rewritten on every change.
+ * Reasons that need more than one sighting are kept as {@code epochMillis,REASON,sightings}
+ * until they have been seen often enough; such entries are not skipped yet.
+ * Expired entries are dropped when the file is loaded and when one is looked up, so the file
+ * does not keep growing.
+ */
+@Component
+public class NegativeAsinCache {
+    private static final Logger logger = LoggerFactory.getLogger(NegativeAsinCache.class);
+
+    private final AmazonProperties amazonProperties;
+    private final Clock clock;
+    private Properties entries;
+
+    @Autowired
+    public NegativeAsinCache(AmazonProperties amazonProperties) {
+        this(amazonProperties, Clock.systemUTC());
+    }
+
+    NegativeAsinCache(AmazonProperties amazonProperties, Clock clock) {
+        this.amazonProperties = amazonProperties;
+        this.clock = clock;
+    }
+
+    /**
+     * True if the ASIN was found dead within the TTL.
+     */
+    public synchronized boolean isKnownDead(String asin) {
+        if (!amazonProperties.getNegativeCache().isEnabled() || asin == null) {
+            return false;
+        }
+        String entry = entries().getProperty(asin);
+        if (entry == null) {
+            return false;
+        }
+        if (isExpired(entry)) {
+            logger.info("Negative cache entry for " + asin + " expired. Checking it again.");
+            entries.remove(asin);
+            flush();
+            return false;
+        }
+        return entry.split(",").length < 3;
+    }
+
+    public synchronized void markDead(String asin, DeadProductReason reason) {
+        if (!amazonProperties.getNegativeCache().isEnabled() || asin == null) {
+            return;
+        }
+        int sightings = previousSightings(asin, reason) + 1;
+        if (sightings < reason.getSightingsNeeded()) {
+            entries().setProperty(asin, clock.millis() + "," + reason.name() + "," + sightings);
+            logger.info("Seen " + asin + " as " + reason + " " + sightings + " of " + reason.getSightingsNeeded()
+                    + " times. Not skipping it yet.");
+        } else {
+            entries().setProperty(asin, clock.millis() + "," + reason.name());
+            logger.info("Added " + asin + " to the negative cache (" + reason + ")");
+        }
+        flush();
+    }
+
+    public synchronized int size() {
+        return entries().size();
+    }
+
+    /**
+     * Writes the cache to disk. Called after every change; safe to call again at shutdown.
+     */
+    public synchronized void flush() {
+        if (entries == null) {
+            return;
+        }
+        Path file = Paths.get(amazonProperties.getNegativeCache().getFile());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                entries.store(writer, "ASINs with dead product pages: epochMillis,reason");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to write negative cache " + file, e);
+        }
+    }
+
+    private Properties entries() {
+        if (entries == null) {
+            entries = new Properties();
+            Path file = Paths.get(amazonProperties.getNegativeCache().getFile());
+            if (Files.exists(file)) {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    entries.load(reader);
+                    logger.info("Loaded " + entries.size() + " negative cache entries from " + file);
+                } catch (IOException e) {
+                    logger.error("Failed to read negative cache " + file + ". Starting empty.", e);
+                }
+                if (entries.values().removeIf(entry -> isExpired((String) entry))) {
+                    logger.info("Dropped expired negative cache entries. " + entries.size() + " left.");
+                    flush();
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Sightings of {@code reason} recorded for an ASIN that is not skipped yet.
+     */
+    private int previousSightings(String asin, DeadProductReason reason) {
+        String entry = entries().getProperty(asin);
+        if (entry == null || isExpired(entry)) {
+            return 0;
+        }
+        String[] fields = entry.split(",");
+        if (fields.length < 3 || !reason.name().equals(fields[1])) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(fields[2]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * True once the entry is older than the TTL. Unreadable entries count as expired.
+     */
+    private boolean isExpired(String entry) {
+        try {
+            Instant recordedAt = Instant.ofEpochMilli(Long.parseLong(entry.split(",", 2)[0]));
+            Duration ttl = Duration.ofDays(amazonProperties.getNegativeCache().getTtlDays());
+            return recordedAt.plus(ttl).isBefore(clock.instant());
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+}
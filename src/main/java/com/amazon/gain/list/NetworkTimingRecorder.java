@@ -0,0 +1,343 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Listens to Chrome DevTools Protocol network and page events and breaks each navigation down into
+ * request count, bytes, DNS, time to first byte, DOMContentLoaded, load and network idle.
+ * <p>
+ * The service calls {@link #beginNavigation} right before it triggers a navigation. Everything
+ * the browser does until the next call is booked against that navigation, tagged with the
+ * year/page/item being processed. One JSON line per navigation is written to
+ * {@code amazon.timing.report-directory}, followed by a run summary with the heaviest domains.
+ * <p>
+ * Only raw CDP method names are used, so this does not depend on a devtools binding that
+ * matches the installed Chrome version.
+ */
+@Component
+public class NetworkTimingRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(NetworkTimingRecorder.class);
+    private static final DateTimeFormatter RUN_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final AmazonProperties amazonProperties;
+    private final Json json = new Json();
+    private final Map<String, Long> runBytesByDomain = new HashMap<>();
+
+    private DevTools devTools;
+    private BufferedWriter report;
+    private Path reportFile;
+    private NavigationStats current;
+    private int navigationCount;
+
+    public NetworkTimingRecorder(AmazonProperties amazonProperties) {
+        this.amazonProperties = amazonProperties;
+    }
+
+    public boolean isEnabled() {
+        return amazonProperties.getTiming().isEnabled();
+    }
+
+    /**
+     * Opens a CDP session on the driver and starts listening. Does nothing when timing is disabled
+     * or the driver has no DevTools support.
+     */
+    public void attach(WebDriver driver) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!(driver instanceof HasDevTools)) {
+            logger.warn("Driver does not support DevTools. Network timing is disabled for this run.");
+            return;
+        }
+        try {
+            devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<>("Network.enable", Map.of()));
+            devTools.send(new Command<>("Page.enable", Map.of()));
+
+            listen("Network.requestWillBeSent", this::onRequestWillBeSent);
+            listen("Network.responseReceived", this::onResponseReceived);
+            listen("Network.loadingFinished", this::onLoadingFinished);
+            listen("Network.loadingFailed", this::onLoadingFailed);
+            listen("Page.domContentEventFired", params -> onPageEvent(params, true));
+            listen("Page.loadEventFired", params -> onPageEvent(params, false));
+
+            openReport();
+        } catch (Exception e) {
+            logger.error("Failed to attach network timing listener", e);
+            detach();
+        }
+    }
+
+    Path openReport() throws IOException {
+        Path directory = Paths.get(amazonProperties.getTiming().getReportDirectory());
+        Files.createDirectories(directory);
+        reportFile = directory.resolve("run-" + LocalDateTime.now().format(RUN_ID_FORMAT) + ".jsonl");
+        report = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+        logger.info("Network timing report: " + reportFile);
+        return reportFile;
+    }
+
+    /**
+     * Closes the navigation in progress (if any) and starts booking events against a new one.
+     */
+    public synchronized void beginNavigation(String action, String year, int page, String item) {
+        if (report == null) {
+            return;
+        }
+        finishCurrent();
+        current = new NavigationStats(++navigationCount, action, year, page, item);
+    }
+
+    /**
+     * Writes the last navigation and the run summary, then releases the CDP session.
+     */
+    public synchronized void finish() {
+        if (report == null) {
+            return;
+        }
+        finishCurrent();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("summary", true);
+        summary.put("navigations", navigationCount);
+        summary.put("heaviestDomains", heaviest(runBytesByDomain, 10));
+        writeLine(summary);
+        logger.info("Network timing: " + navigationCount + " navigations recorded in " + reportFile
+                + ". Heaviest domains: " + heaviest(runBytesByDomain, 5));
+        detach();
+    }
+
+    private void detach() {
+        if (devTools != null) {
+            try {
+                devTools.clearListeners();
+                devTools.disconnectSession();
+            } catch (Exception e) {
+                logger.warn("Failed to close DevTools session", e);
+            }
+            devTools = null;
+        }
+        if (report != null) {
+            try {
+                report.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close timing report", e);
+            }
+            report = null;
+        }
+    }
+
+    private void listen(String method, Consumer<Map<String, Object>> handler) {
+        devTools.addListener(new Event<Map<String, Object>>(method, input -> input.read(Json.MAP_TYPE)), params -> {
+            try {
+                handler.accept(params);
+            } catch (RuntimeException e) {
+                logger.debug("Ignoring malformed " + method + " event", e);
+            }
+        });
+    }
+
+    synchronized void onRequestWillBeSent(Map<String, Object> params) {
+        if (current == null) {
+            return;
+        }
+        Map<String, Object> request = map(params.get("request"));
+        double timestamp = number(params.get("timestamp"));
+        String requestId = (String) params.get("requestId");
+        if (current.startTimestamp < 0) {
+            current.startTimestamp = timestamp;
+        }
+        if (current.hosts.put(requestId, host((String) request.get("url"))) == null) {
+            current.requests++;
+            current.inFlight++;
+        }
+        if ("Document".equals(params.get("type")) && current.documentRequestId == null) {
+            current.documentRequestId = requestId;
+        }
+    }
+
+    synchronized void onResponseReceived(Map<String, Object> params) {
+        if (current == null || !params.get("requestId").equals(current.documentRequestId)) {
+            return;
+        }
+        Map<String, Object> timing = map(map(params.get("response")).get("timing"));
+        if (timing.isEmpty()) {
+            return;
+        }
+        current.ttfbMs = number(timing.get("receiveHeadersEnd"));
+        double dnsStart = number(timing.get("dnsStart"));
+        if (dnsStart >= 0) {
+            current.dnsMs = number(timing.get("dnsEnd")) - dnsStart;
+        }
+        double connectStart = number(timing.get("connectStart"));
+        if (connectStart >= 0) {
+            current.connectMs = number(timing.get("connectEnd")) - connectStart;
+        }
+    }
+
+    synchronized void onLoadingFinished(Map<String, Object> params) {
+        if (current == null) {
+            return;
+        }
+        String host = current.hosts.get((String) params.get("requestId"));
+        if (host == null) {
+            return;
+        }
+        long bytes = (long) number(params.get("encodedDataLength"));
+        current.bytes += bytes;
+        current.bytesByDomain.merge(host, bytes, Long::sum);
+        runBytesByDomain.merge(host, bytes, Long::sum);
+        requestDone(number(params.get("timestamp")));
+    }
+
+    synchronized void onLoadingFailed(Map<String, Object> params) {
+        if (current == null || !current.hosts.containsKey((String) params.get("requestId"))) {
+            return;
+        }
+        current.failed++;
+        requestDone(number(params.get("timestamp")));
+    }
+
+    synchronized void onPageEvent(Map<String, Object> params, boolean domContentLoaded) {
+        if (current == null || current.startTimestamp < 0) {
+            return;
+        }
+        double elapsedMs = (number(params.get("timestamp")) - current.startTimestamp) * 1000;
+        if (domContentLoaded && current.domContentLoadedMs < 0) {
+            current.domContentLoadedMs = elapsedMs;
+        } else if (!domContentLoaded && current.loadMs < 0) {
+            current.loadMs = elapsedMs;
+        }
+    }
+
+    private void requestDone(double timestamp) {
+        current.inFlight = Math.max(0, current.inFlight - 1);
+        if (current.inFlight == 0 && current.startTimestamp >= 0) {
+            current.networkIdleMs = (timestamp - current.startTimestamp) * 1000;
+        }
+    }
+
+    private void finishCurrent() {
+        if (current == null) {
+            return;
+        }
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("navigation", current.index);
+        line.put("action", current.action);
+        line.put("year", current.year);
+        line.put("page", current.page);
+        line.put("item", current.item);
+        line.put("requests", current.requests);
+        line.put("failedRequests", current.failed);
+        line.put("bytes", current.bytes);
+        line.put("dnsMs", round(current.dnsMs));
+        line.put("connectMs", round(current.connectMs));
+        line.put("ttfbMs", round(current.ttfbMs));
+        line.put("domContentLoadedMs", round(current.domContentLoadedMs));
+        line.put("loadMs", round(current.loadMs));
+        line.put("networkIdleMs", current.inFlight == 0 ? round(current.networkIdleMs) : -1);
+        line.put("heaviestDomains", heaviest(current.bytesByDomain, amazonProperties.getTiming().getTopDomains()));
+        writeLine(line);
+        current = null;
+    }
+
+    private void writeLine(Map<String, Object> line) {
+        try {
+            report.write(json.toJson(line).replace("\n", " "));
+            report.newLine();
+            report.flush();
+        } catch (IOException e) {
+            logger.warn("Failed to write timing report line", e);
+        }
+    }
+
+    private static List<Map<String, Object>> heaviest(Map<String, Long> bytesByDomain, int limit) {
+        return bytesByDomain.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> {
+                    Map<String, Object> domain = new LinkedHashMap<>();
+                    domain.put("domain", entry.getKey());
+                    domain.put("bytes", entry.getValue());
+                    return domain;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : "(none)";
+        } catch (Exception e) {
+            return "(invalid)";
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Map.of();
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : -1;
+    }
+
+    private static long round(double value) {
+        return value < 0 ? -1 : Math.round(value);
+    }
+
+    private static class NavigationStats {
+        final int index;
+        final String action;
+        final String year;
+        final int page;
+        final String item;
+        final Map<String, String> hosts = new HashMap<>();
+        final Map<String, Long> bytesByDomain = new HashMap<>();
+        String documentRequestId;
+        double startTimestamp = -1;
+        int requests;
+        int failed;
+        int inFlight;
+        long bytes;
+        double dnsMs = -1;
+        double connectMs = -1;
+        double ttfbMs = -1;
+        double domContentLoadedMs = -1;
+        double loadMs = -1;
+        double networkIdleMs = -1;
+
+        NavigationStats(int index, String action, String year, int page, String item) {
+            this.index = index;
+            this.action = action;
+            this.year = year;
+            this.page = page;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk archive of the pages the service visits, for offline regression and benchmark runs.
+ * <p>
+ * In record mode the rendered DOM of every page is saved just before the service navigates away
+ * from it, so list popovers and other script-built content opened on the page are included.
+ * Scripts are stripped and absolute amazon.com links are made relative, so the archive can be
+ * served by {@link ReplayServer} without touching the network. Pages are stored gzipped under
+ * {@code pages/}; {@code index.tsv} maps a normalised path to its file and {@code aliases.tsv}
+ * keeps redirects and year shortcuts.
+ */
+@Component
+public class PageArchive {
+    private static final Logger logger = LoggerFactory.getLogger(PageArchive.class);
+    private static final Pattern SCRIPT_TAG = Pattern.compile("(?is)<script\\b.*?</script>");
+    private static final Pattern AMAZON_ORIGIN = Pattern.compile("https?://(www\\.)?amazon\\.com(?=[/\"'?#])");
+    private static final List<String> VOLATILE_PARAMS = List.of("ref", "ref_", "qid", "sr", "_encoding", "content-id");
+    private static final String INDEX_FILE = "index.tsv";
+    private static final String ALIASES_FILE = "aliases.tsv";
+
+    private final AmazonProperties amazonProperties;
+    private final Map<String, String> index = new ConcurrentHashMap<>();
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private Path directory;
+    private BufferedWriter indexWriter;
+    private BufferedWriter aliasWriter;
+
+    public PageArchive(AmazonProperties amazonProperties) {
+        this.amazonProperties = amazonProperties;
+    }
+
+    public boolean isRecording() {
+        return "record".equalsIgnoreCase(amazonProperties.getArchive().getMode());
+    }
+
+    public boolean isReplaying() {
+        return "replay".equalsIgnoreCase(amazonProperties.getArchive().getMode());
+    }
+
+    /**
+     * Path the replay server answers for "the order page of this year", since the live site
+     * selects years through a script-driven dropdown that does not exist in the archive.
+     */
+    public static String yearPath(String year) {
+        return "/__archive/year/" + year;
+    }
+
+    /**
+     * Prepares the archive directory. In record mode an existing archive is extended, and
+     * document redirects are captured through DevTools when the driver supports it.
+     */
+    public synchronized void open(WebDriver driver) throws IOException {
+        directory = Paths.get(amazonProperties.getArchive().getDirectory());
+        load();
+        if (isReplaying()) {
+            logger.info("Replaying " + index.size() + " archived pages from " + directory);
+            return;
+        }
+        if (!isRecording()) {
+            return;
+        }
+        Files.createDirectories(directory.resolve("pages"));
+        indexWriter = Files.newBufferedWriter(directory.resolve(INDEX_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        aliasWriter = Files.newBufferedWriter(directory.resolve(ALIASES_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (driver instanceof HasDevTools) {
+            listenForRedirects(((HasDevTools) driver).getDevTools());
+        }
+        logger.info("Recording visited pages to " + directory);
+    }
+
+    /**
+     * Saves the page the driver is currently showing. Later captures of the same page replace
+     * the earlier one.
+     */
+    public void capture(WebDriver driver) {
+        if (indexWriter == null || driver == null) {
+            return;
+        }
+        try {
+            String url = driver.getCurrentUrl();
+            if (url != null && url.startsWith("http")) {
+                record(url, driver.getPageSource());
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to archive current page", e);
+        }
+    }
+
+    public synchronized void record(String url, String html) throws IOException {
+        String key = normalize(url);
+        if (key == null || indexWriter == null) {
+            return;
+        }
+        String fileName = "pages/" + hash(key) + ".html.gz";
+        String cleaned = AMAZON_ORIGIN.matcher(SCRIPT_TAG.matcher(html).replaceAll("")).replaceAll("");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(directory.resolve(fileName)))) {
+            out.write(cleaned.getBytes(StandardCharsets.UTF_8));
+        }
+        if (index.put(key, fileName) == null) {
+            indexWriter.write(key + "\t" + fileName);
+            indexWriter.newLine();
+            indexWriter.flush();
+        }
+    }
+
+    public synchronized void recordAlias(String fromUrl, String toUrl) {
+        String from = normalize(fromUrl);
+        String to = normalize(toUrl);
+        if (from == null || to == null || from.equals(to) || aliasWriter == null) {
+            return;
+        }
+        if (!to.equals(aliases.put(from, to))) {
+            try {
+                aliasWriter.write(from + "\t" + to);
+                aliasWriter.newLine();
+                aliasWriter.flush();
+            } catch (IOException e) {
+                logger.warn("Failed to archive redirect " + from + " -> " + to, e);
+            }
+        }
+    }
+
+    /**
+     * Gzipped page body for a request path, if it was recorded.
+     */
+    public Optional<Path> lookup(String pathAndQuery) {
+        String key = normalize(pathAndQuery);
+        String fileName = key == null ? null : index.get(key);
+        return fileName == null ? Optional.empty() : Optional.of(directory.resolve(fileName));
+    }
+
+    /**
+     * Where a recorded redirect or year shortcut for this path points, if any.
+     */
+    public Optional<String> redirectFor(String pathAndQuery) {
+        String key = normalize(pathAndQuery);
+        return key == null ? Optional.empty() : Optional.ofNullable(aliases.get(key));
+    }
+
+    public synchronized void close() {
+        try {
+            if (indexWriter != null) {
+                indexWriter.close();
+                logger.info("Archived " + index.size() + " pages in " + directory);
+            }
+            if (aliasWriter != null) {
+                aliasWriter.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close page archive", e);
+        } finally {
+            indexWriter = null;
+            aliasWriter = null;
+        }
+    }
+
+    /**
+     * Reduces a URL to a stable key: host dropped, {@code /ref=} path segments and tracking
+     * parameters removed, remaining parameters sorted.
+     */
+    static String normalize(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        URI uri;
+        try {
+            uri = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        path = path.replaceAll("/ref=[^/]*", "");
+        if (path.isEmpty()) {
+            path = "/";
+        }
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return path;
+        }
+        String kept = Arrays.stream(query.split("&"))
+                .filter(param -> !param.isEmpty())
+                .filter(param -> !VOLATILE_PARAMS.contains(param.split("=", 2)[0]))
+                .sorted()
+                .collect(Collectors.joining("&"));
+        return kept.isEmpty() ? path : path + "?" + kept;
+    }
+
+    private void listenForRedirects(DevTools devTools) {
+        try {
+            devTools.createSessionIfThereIsNotOne();
+            devTools.addListener(new Event<Map<String, Object>>("Network.requestWillBeSent",
+                    input -> input.read(Json.MAP_TYPE)), params -> {
+                Object redirect = params.get("redirectResponse");
+                Object request = params.get("request");
+                if ("Document".equals(params.get("type")) && redirect instanceof Map && request instanceof Map) {
+                    recordAlias((String) ((Map<?, ?>) redirect).get("url"), (String) ((Map<?, ?>) request).get("url"));
+                }
+            });
+            devTools.send(new Command<>("Network.enable", Map.of()));
+        } catch (Exception e) {
+            logger.warn("Redirects will not be archived; DevTools is unavailable", e);
+        }
+    }
+
+    private void load() throws IOException {
+        index.clear();
+        aliases.clear();
+        readTsv(directory.resolve(INDEX_FILE), index);
+        readTsv(directory.resolve(ALIASES_FILE), aliases);
+    }
+
+    private static void readTsv(Path file, Map<String, String> target) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t", 2);
+            if (parts.length == 2) {
+                target.put(parts[0], parts[1]);
+            }
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.amazon.gain.list;
+
+/**
+ * A product read off an order card. The ASIN is null if it could not be parsed from the URL.
+ */
+public record ProductLink(String asin, String url, String title) {
+}
@@ -0,0 +1,143 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WindowType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opens upcoming product pages in background tabs of the same browser while the current item is
+ * being added, so the page is usually loaded by the time the worker switches to it.
+ * <p>
+ * The order-history page stays in its own tab and is never navigated away from. How many tabs are
+ * prefetched is limited by the configured depth and by a memory cap. WebDriver cannot see renderer
+ * memory, so each tab is costed at the configured estimate, or at the average JS heap of the product
+ * tabs seen so far if that is higher.
+ */
+class ProductPrefetcher {
+    private static final Logger logger = LoggerFactory.getLogger(ProductPrefetcher.class);
+
+    private final WebDriver driver;
+    private final String ordersHandle;
+    private final int depth;
+    private final long memoryCapBytes;
+    private final long estimatedTabBytes;
+    private final Map<String, String> prefetched = new LinkedHashMap<>(); // url -> window handle
+    private String currentHandle;
+    private long measuredTabs;
+    private long averageHeapBytes;
+
+    ProductPrefetcher(WebDriver driver, int depth, int memoryCapMb, int estimatedTabMb) {
+        this.driver = driver;
+        this.ordersHandle = driver.getWindowHandle();
+        this.depth = depth;
+        this.memoryCapBytes = memoryCapMb * 1024L * 1024L;
+        this.estimatedTabBytes = estimatedTabMb * 1024L * 1024L;
+    }
+
+    /**
+     * Switches to a tab showing {@code url}, reusing a prefetched one if there is one, then starts
+     * prefetching the next few of {@code upcoming} in the background.
+     */
+    void open(String url, List<String> upcoming) {
+        String handle = prefetched.remove(url);
+        if (handle != null) {
+            driver.switchTo().window(handle);
+            logger.info("Using prefetched tab for " + url);
+        } else {
+            driver.switchTo().newWindow(WindowType.TAB);
+            handle = driver.getWindowHandle();
+            driver.get(url);
+        }
+        currentHandle = handle;
+        measureCurrentTab();
+        prefetch(upcoming);
+    }
+
+    /**
+     * Closes the tab opened by {@link #open} and goes back to the order-history tab.
+     */
+    void closeCurrent() {
+        if (currentHandle != null) {
+            closeTab(currentHandle);
+            currentHandle = null;
+        }
+        driver.switchTo().window(ordersHandle);
+    }
+
+    void closeAll() {
+        closeCurrent();
+        for (String handle : prefetched.values()) {
+            closeTab(handle);
+        }
+        prefetched.clear();
+        driver.switchTo().window(ordersHandle);
+    }
+
+    int getPrefetchedCount() {
+        return prefetched.size();
+    }
+
+    int allowedDepth() {
+        return allowedDepth(depth, memoryCapBytes, Math.max(estimatedTabBytes, averageHeapBytes));
+    }
+
+    /**
+     * How many tabs may be prefetched: the configured depth, unless fewer fit under the memory cap
+     * next to the tab in use.
+     */
+    static int allowedDepth(int depth, long memoryCapBytes, long tabBytes) {
+        long byMemory = tabBytes <= 0 ? depth : memoryCapBytes / tabBytes - 1; // minus the tab in use
+        return (int) Math.max(0, Math.min(depth, byMemory));
+    }
+
+    private void prefetch(List<String> upcoming) {
+        int allowed = allowedDepth();
+        for (String url : upcoming) {
+            if (prefetched.size() >= allowed) {
+                break;
+            }
+            if (url == null || prefetched.containsKey(url)) {
+                continue;
+            }
+            Set<String> before = new HashSet<>(driver.getWindowHandles());
+            ((JavascriptExecutor) driver).executeScript("window.open(arguments[0], '_blank');", url);
+            Set<String> after = new HashSet<>(driver.getWindowHandles());
+            after.removeAll(before);
+            if (after.size() != 1) {
+                logger.warn("Could not open prefetch tab for " + url);
+                break;
+            }
+            prefetched.put(url, after.iterator().next());
+        }
+    }
+
+    private void measureCurrentTab() {
+        try {
+            Object heap = ((JavascriptExecutor) driver).executeScript(
+                    "return window.performance && performance.memory ? performance.memory.usedJSHeapSize : null;");
+            if (heap instanceof Number) {
+                measuredTabs++;
+                averageHeapBytes += (((Number) heap).longValue() - averageHeapBytes) / measuredTabs;
+            }
+        } catch (Exception e) {
+            logger.debug("Could not read tab memory", e);
+        }
+    }
+
+    private void closeTab(String handle) {
+        try {
+            driver.switchTo().window(handle);
+            driver.close();
+        } catch (Exception e) {
+            logger.debug("Tab " + handle + " already closed", e);
+        }
+    }
+}
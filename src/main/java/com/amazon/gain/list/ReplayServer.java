@@ -0,0 +1,99 @@
+package com.amazon.gain.list;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a {@link PageArchive} on localhost so the service can be pointed at it instead of
+ * amazon.com. Pages are sent gzipped straight from disk; unknown paths get a 404.
+ */
+@Component
+public class ReplayServer {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayServer.class);
+
+    private final AmazonProperties amazonProperties;
+    private final PageArchive pageArchive;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ReplayServer(AmazonProperties amazonProperties, PageArchive pageArchive) {
+        this.amazonProperties = amazonProperties;
+        this.pageArchive = pageArchive;
+    }
+
+    /**
+     * Starts the server and returns its base URL.
+     */
+    public synchronized String start() throws IOException {
+        if (server == null) {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    amazonProperties.getArchive().getReplayPort());
+            server = HttpServer.create(address, 0);
+            server.createContext("/", this::handle);
+            executor = Executors.newFixedThreadPool(4, runnable -> {
+                Thread thread = new Thread(runnable, "replay-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(executor);
+            server.start();
+            logger.info("Replay server listening on " + getBaseUrl());
+        }
+        return getBaseUrl();
+    }
+
+    public synchronized String getBaseUrl() {
+        return server == null ? null : "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String pathAndQuery = exchange.getRequestURI().getRawPath()
+                    + (exchange.getRequestURI().getRawQuery() == null ? "" : "?" + exchange.getRequestURI().getRawQuery());
+
+            Optional<Path> page = pageArchive.lookup(pathAndQuery);
+            if (page.isPresent()) {
+                byte[] body = Files.readAllBytes(page.get());
+                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+                return;
+            }
+
+            Optional<String> redirect = pageArchive.redirectFor(pathAndQuery);
+            if (redirect.isPresent()) {
+                exchange.getResponseHeaders().set("Location", redirect.get());
+                exchange.sendResponseHeaders(302, -1);
+                return;
+            }
+
+            logger.debug("Not in archive: " + pathAndQuery);
+            exchange.sendResponseHeaders(404, -1);
+        }
+    }
+}
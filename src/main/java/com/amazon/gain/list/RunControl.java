@@ -0,0 +1,307 @@
+package com.amazon.gain.list;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Progress of the current run, and the operator's pause/resume/throttle/cancel switches.
+ * <p>
+ * The service reports where it is and calls {@link #awaitUnpaused} before each year, page or
+ * shard and {@link #awaitTurn} before each item. That is where a pause takes effect and where a
+ * cancelled run stops, so a run is never stopped halfway through adding an item. The throttle
+ * delay and the worker limit only apply to items.
+ */
+@Component
+public class RunControl {
+    private static final Logger logger = LoggerFactory.getLogger(RunControl.class);
+    private static final long WAIT_SLICE_MILLIS = 500;
+
+    public enum State { IDLE, RUNNING, PAUSED, CANCELLING, FINISHED }
+
+    private final Clock clock;
+    private final Map<String, String> workers = new TreeMap<>(); // worker -> what it is doing
+    private State state = State.IDLE;
+    private Instant startedAt;
+    private Instant pausedAt;
+    private Duration pausedFor = Duration.ZERO;
+    private String year;
+    private int page;
+    private int queued;
+    private String unit = "years"; // what the run is split into for the ETA: years, or shards when sharding
+    private int unitsRemaining = -1; // years or shards not started yet; unknown until known
+    private long processed;
+    private long added;
+    private long completedUnits;
+    private long itemsInCompletedUnits;
+    private long itemsAtUnitStart;
+    private int maxWorkers = 1;
+    private int workerLimit = 1;
+    private long throttleMillis;
+
+    @Autowired
+    public RunControl() {
+        this(Clock.systemUTC());
+    }
+
+    RunControl(Clock clock) {
+        this.clock = clock;
+    }
+
+    public synchronized void start(int maxWorkers) {
+        state = State.RUNNING;
+        startedAt = clock.instant();
+        pausedAt = null;
+        pausedFor = Duration.ZERO;
+        year = null;
+        page = 0;
+        queued = 0;
+        unit = "years";
+        unitsRemaining = -1;
+        processed = 0;
+        added = 0;
+        completedUnits = 0;
+        itemsInCompletedUnits = 0;
+        itemsAtUnitStart = 0;
+        workers.clear();
+        this.maxWorkers = Math.max(1, maxWorkers);
+        workerLimit = this.maxWorkers;
+        notifyAll();
+    }
+
+    public synchronized void finish() {
+        state = State.FINISHED;
+        workers.clear();
+        notifyAll();
+    }
+
+    public synchronized void yearsPlanned(int years) {
+        unit = "years";
+        unitsRemaining = years;
+    }
+
+    public synchronized void yearStarted(String year) {
+        this.year = year;
+        itemsAtUnitStart = processed;
+        if (unitsRemaining > 0) {
+            unitsRemaining--;
+        }
+    }
+
+    public synchronized void yearFinished() {
+        unitFinished();
+    }
+
+    /**
+     * Starts a shard. {@code shardsRemaining} is the number of other shards not done yet; pages
+     * that have not been found yet are not in it, so the ETA is low early in a run.
+     */
+    public synchronized void shardStarted(Shard shard, int shardsRemaining) {
+        year = shard.year();
+        page = shard.page();
+        unit = "shards";
+        unitsRemaining = shardsRemaining;
+        itemsAtUnitStart = processed;
+    }
+
+    public synchronized void shardFinished() {
+        unitFinished();
+    }
+
+    private void unitFinished() {
+        completedUnits++;
+        itemsInCompletedUnits += processed - itemsAtUnitStart;
+    }
+
+    public synchronized void pageStarted(String year, int page, int queued) {
+        this.year = year;
+        this.page = page;
+        this.queued = queued;
+    }
+
+    /**
+     * Counts one item off the current page's queue, whether it was added, skipped or failed.
+     */
+    public synchronized void itemDone(boolean wasAdded) {
+        processed++;
+        if (wasAdded) {
+            added++;
+        }
+        if (queued > 0) {
+            queued--;
+        }
+    }
+
+    public synchronized void workerState(String worker, String activity) {
+        if (activity == null) {
+            workers.remove(worker);
+        } else {
+            workers.put(worker, activity);
+        }
+    }
+
+    /**
+     * Blocks while the run is paused, then applies the throttle delay. Returns false once the run
+     * is cancelled or the calling thread is interrupted, meaning the caller should stop.
+     */
+    public boolean awaitTurn() {
+        return awaitTurn(0, () -> true);
+    }
+
+    /**
+     * Like {@link #awaitTurn()}, without the throttle delay. For checkpoints between years, pages
+     * and shards, where no item is being added.
+     */
+    public boolean awaitUnpaused() {
+        return waitWhilePaused(0, () -> true) >= 0;
+    }
+
+    /**
+     * Like {@link #awaitTurn()}, for the {@code worker}-th of several workers. Workers above the
+     * current limit also wait here. A waiting worker gives up, returning false, once
+     * {@code hasWork} says there is nothing left for it to do.
+     */
+    public boolean awaitTurn(int worker, BooleanSupplier hasWork) {
+        long delay = waitWhilePaused(worker, hasWork);
+        if (delay < 0) {
+            return false;
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the worker may go on and returns the throttle delay, or -1 if it should stop.
+     */
+    private synchronized long waitWhilePaused(int worker, BooleanSupplier hasWork) {
+        if (Thread.currentThread().isInterrupted()) {
+            return -1;
+        }
+        try {
+            while (state != State.CANCELLING && (state == State.PAUSED || worker >= workerLimit)) {
+                if (!hasWork.getAsBoolean()) {
+                    return -1;
+                }
+                wait(WAIT_SLICE_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+        return state == State.CANCELLING ? -1 : throttleMillis;
+    }
+
+    public synchronized boolean pause() {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        state = State.PAUSED;
+        pausedAt = clock.instant();
+        logger.info("Run paused");
+        return true;
+    }
+
+    public synchronized boolean resume() {
+        if (state != State.PAUSED) {
+            return false;
+        }
+        state = State.RUNNING;
+        pausedFor = pausedFor.plus(Duration.between(pausedAt, clock.instant()));
+        pausedAt = null;
+        notifyAll();
+        logger.info("Run resumed");
+        return true;
+    }
+
+    public synchronized boolean cancel() {
+        if (state != State.RUNNING && state != State.PAUSED) {
+            return false;
+        }
+        state = State.CANCELLING;
+        notifyAll();
+        logger.info("Run cancelled. Stopping after the items in progress.");
+        return true;
+    }
+
+    public synchronized boolean isCancelled() {
+        return state == State.CANCELLING;
+    }
+
+    /**
+     * Changes the delay before each item and/or how many workers may run. Either may be null to
+     * keep its current value. The worker limit cannot exceed the workers the run started with.
+     */
+    public synchronized void throttle(Long delayMillis, Integer workers) {
+        if (delayMillis != null) {
+            throttleMillis = Math.max(0, delayMillis);
+        }
+        if (workers != null) {
+            workerLimit = Math.max(1, Math.min(maxWorkers, workers));
+        }
+        notifyAll();
+        logger.info("Throttle set to " + throttleMillis + " ms per item with " + workerLimit + " of " + maxWorkers + " workers");
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state.name());
+        status.put("startedAt", startedAt == null ? null : startedAt.toString());
+        status.put("year", year);
+        status.put("page", page);
+        status.put("queued", queued);
+        status.put(unit + "Remaining", unitsRemaining);
+        status.put("processed", processed);
+        status.put("added", added);
+        Double perMinute = itemsPerMinute();
+        status.put("itemsPerMinute", perMinute);
+        status.put("etaSeconds", etaSeconds(perMinute));
+        status.put("throttleMillis", throttleMillis);
+        status.put("workerLimit", workerLimit);
+        status.put("maxWorkers", maxWorkers);
+        status.put("workers", new TreeMap<>(workers));
+        return status;
+    }
+
+    /**
+     * Items per minute of running time, not counting time spent paused.
+     */
+    private Double itemsPerMinute() {
+        if (startedAt == null || processed == 0) {
+            return null;
+        }
+        Duration paused = pausedAt == null ? pausedFor : pausedFor.plus(Duration.between(pausedAt, clock.instant()));
+        long activeMillis = Duration.between(startedAt, clock.instant()).minus(paused).toMillis();
+        return activeMillis <= 0 ? null : processed * 60_000.0 / activeMillis;
+    }
+
+    /**
+     * Time left for the current page's queue, plus the years or shards not started yet at the
+     * average size of those finished so far. Null until there is a rate to go by.
+     */
+    private Long etaSeconds(Double perMinute) {
+        if (perMinute == null || perMinute <= 0) {
+            return null;
+        }
+        double remaining = queued;
+        if (unitsRemaining > 0 && completedUnits > 0) {
+            remaining += (double) unitsRemaining * itemsInCompletedUnits / completedUnits;
+        }
+        return Math.round(remaining / perMinute * 60);
+    }
+}
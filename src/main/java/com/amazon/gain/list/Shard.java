@@ -0,0 +1,16 @@
+package com.amazon.gain.list;
+
+/**
+ * One order-history page of one year: the unit of work handed out to nodes.
+ */
+public record Shard(String year, int page) {
+
+    public String key() {
+        return year + "/" + page;
+    }
+
+    public static Shard fromKey(String key) {
+        String[] parts = key.split("/", 2);
+        return new Shard(parts[0], Integer.parseInt(parts[1]));
+    }
+}
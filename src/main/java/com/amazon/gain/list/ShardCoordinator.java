@@ -0,0 +1,70 @@
+package com.amazon.gain.list;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Shared store that lets several hosts split one account's order history.
+ * <p>
+ * Shards are leased, not assigned: a node that stops sending heartbeats loses its shard to the
+ * next node that asks for work. ASINs are claimed centrally before they are added so no item
+ * lands on the list twice, whichever node finds it. A claim belongs to the lease it was made
+ * under until the add is submitted; if the lease is lost first, the claim goes with it and the
+ * node that takes the shard over can add the item.
+ */
+public interface ShardCoordinator {
+
+    /**
+     * Adds shards that are not known yet. Shards that already exist keep their state. Also marks
+     * the run's shard set as published, even when {@code shards} is empty.
+     */
+    void publish(Collection<Shard> shards);
+
+    /**
+     * Leases the next pending shard, or one whose lease has expired.
+     */
+    Optional<ShardLease> claim(String nodeId);
+
+    /**
+     * Extends a lease. Returns the renewed lease, or empty if it was lost to another node.
+     */
+    Optional<ShardLease> renew(ShardLease lease);
+
+    /**
+     * Marks the shard done. Ignored if the lease is no longer held.
+     */
+    void complete(ShardLease lease);
+
+    /**
+     * Hands an unfinished shard back as pending, so any node can pick it up without waiting for
+     * the lease to expire. Ignored if the lease is no longer held.
+     */
+    void release(ShardLease lease);
+
+    /**
+     * True once the shard set was published and every shard in it is done. A run that published
+     * no shards at all is finished.
+     */
+    boolean isFinished();
+
+    /**
+     * Number of shards published so far that are not done yet, leased ones included.
+     */
+    int remaining();
+
+    /**
+     * Claims an ASIN for adding under {@code lease}. Returns false if it was already added, if it
+     * is claimed under another lease that is still held, or if {@code lease} itself was lost.
+     */
+    boolean claimAsin(String asin, ShardLease lease);
+
+    /**
+     * Records that the add was submitted. From then on no node claims the ASIN again.
+     */
+    void markAsinAdded(String asin, ShardLease lease);
+
+    /**
+     * Gives back a claim made under {@code lease} whose add failed, so it can be tried again.
+     */
+    void releaseAsin(String asin, ShardLease lease);
+}
@@ -0,0 +1,9 @@
+package com.amazon.gain.list;
+
+import java.time.Instant;
+
+/**
+ * A node's claim on a shard. It is only valid while {@code expiresAt} keeps being pushed out by heartbeats.
+ */
+public record ShardLease(Shard shard, String nodeId, String leaseId, Instant expiresAt) {
+}
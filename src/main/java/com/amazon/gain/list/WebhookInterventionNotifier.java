@@ -0,0 +1,54 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * POSTs the request as JSON to {@code amazon.intervention.webhook-url}. The call is
+ * fire-and-forget so a slow receiver never holds up the parked session.
+ */
+@Component
+@ConditionalOnProperty(prefix = "amazon.intervention", name = "notifier", havingValue = "webhook")
+public class WebhookInterventionNotifier implements InterventionNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInterventionNotifier.class);
+
+    private final AmazonProperties amazonProperties;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public WebhookInterventionNotifier(AmazonProperties amazonProperties) {
+        this.amazonProperties = amazonProperties;
+    }
+
+    @Override
+    public void notify(InterventionRequest request) {
+        String webhookUrl = amazonProperties.getIntervention().getWebhookUrl();
+        if (webhookUrl == null || webhookUrl.isBlank()) {
+            logger.error("amazon.intervention.webhook-url is not set. Cannot send intervention request for session " + request.sessionId());
+            return;
+        }
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(webhookUrl))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(new Json().toJson(request.toMap())))
+                .build();
+        httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        logger.error("Failed to send intervention webhook for session " + request.sessionId(), error);
+                    } else {
+                        logger.info("Intervention webhook answered " + response.statusCode() + " for session " + request.sessionId());
+                    }
+                });
+    }
+}
@@ -0,0 +1,72 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BrowserTabSchedulerTests {
+
+    @Test
+    void withTabRunsOneWorkerAtATimeOnItsOwnTab() throws Exception {
+        StubWebDriver driver = new StubWebDriver((tab, script) -> null);
+        BrowserTabScheduler scheduler = new BrowserTabScheduler(driver, 2);
+        List<String> handles = scheduler.getWorkerHandles();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger mostInside = new AtomicInteger();
+        ConcurrentLinkedQueue<String> wrongTab = new ConcurrentLinkedQueue<>();
+
+        List<CompletableFuture<Void>> workers = handles.stream().map(handle -> CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 5; i++) {
+                scheduler.withTab(handle, wd -> {
+                    mostInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    sleep(10);
+                    if (!handle.equals(wd.getWindowHandle())) {
+                        wrongTab.add(handle);
+                    }
+                    inside.decrementAndGet();
+                    return null;
+                });
+            }
+        })).toList();
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(mostInside.get()).isEqualTo(1);
+        assertThat(wrongTab).isEmpty();
+    }
+
+    @Test
+    void awaitLoadedLetsOtherWorkersInBetweenPolls() throws Exception {
+        AtomicBoolean loaded = new AtomicBoolean();
+        StubWebDriver driver = new StubWebDriver((tab, script) -> loaded.get());
+        BrowserTabScheduler scheduler = new BrowserTabScheduler(driver, 2);
+        List<String> handles = scheduler.getWorkerHandles();
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() ->
+                scheduler.awaitLoaded(handles.get(0), Duration.ofSeconds(5)));
+        Thread.sleep(100);
+
+        CompletableFuture<String> other = CompletableFuture.supplyAsync(() ->
+                scheduler.withTab(handles.get(1), wd -> wd.getWindowHandle()));
+        assertThat(other.get(1, TimeUnit.SECONDS)).isEqualTo(handles.get(1));
+        assertThat(waiting).isNotDone();
+
+        loaded.set(true);
+        waiting.get(2, TimeUnit.SECONDS);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
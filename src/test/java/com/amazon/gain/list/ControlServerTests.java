@@ -0,0 +1,80 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ControlServerTests {
+
+    private final RunControl runControl = new RunControl(new MutableClock());
+    private ControlServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getControl().setEnabled(true);
+        properties.getControl().setPort(0);
+        server = new ControlServer(properties, runControl, new HumanInterventionService(properties, request -> { }));
+        server.start();
+        runControl.start(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void pauseAndThrottleReachTheRun() throws Exception {
+        assertThat(post("/pause").body()).contains("\"changed\": true");
+        assertThat(get("/status").body()).contains("\"state\": \"PAUSED\"");
+
+        HttpResponse<String> throttled = post("/throttle?delayMs=250&workers=1");
+        assertThat(throttled.statusCode()).isEqualTo(200);
+        assertThat(runControl.snapshot().get("throttleMillis")).isEqualTo(250L);
+        assertThat(runControl.snapshot().get("workerLimit")).isEqualTo(1);
+    }
+
+    @Test
+    void badRequestsAreRejected() throws Exception {
+        assertThat(post("/throttle?delayMs=soon").statusCode()).isEqualTo(400);
+        assertThat(get("/pause").statusCode()).isEqualTo(405);
+        assertThat(post("/intervention/resolve").statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void stoppingTheServerEndsItsThread() throws Exception {
+        get("/status");
+        server.stop();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (controlThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(controlThreads()).isZero();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        // A fresh client per request, like curl, so no pooled connection is reused
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path) throws Exception {
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long controlThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("control-server") && thread.isAlive())
+                .count();
+    }
+}
@@ -0,0 +1,70 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiagnosticsCaptureTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesScreenshotAndCompressedDom() throws Exception {
+        DiagnosticsCapture capture = new DiagnosticsCapture(properties(16));
+
+        capture.enqueue(new DiagnosticsCapture.Capture("item error/B000123456", Instant.parse("2026-01-01T00:00:00Z"),
+                new byte[]{1, 2, 3}, "<html>dead page</html>"));
+        capture.close();
+
+        List<Path> files = list();
+        assertThat(files).extracting(path -> path.getFileName().toString())
+                .containsExactly("20260101-000000-000-1-item_error_B000123456.html.gz",
+                        "20260101-000000-000-1-item_error_B000123456.png");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(files.get(0)))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("<html>dead page</html>");
+        }
+    }
+
+    @Test
+    void oldestArtifactsAreEvictedOverTheDiskCap() throws Exception {
+        DiagnosticsCapture capture = new DiagnosticsCapture(properties(1));
+        Random random = new Random(1);
+        for (int i = 0; i < 4; i++) {
+            byte[] screenshot = new byte[400 * 1024];
+            random.nextBytes(screenshot);
+            capture.enqueue(new DiagnosticsCapture.Capture("sample", Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i),
+                    screenshot, null));
+        }
+        capture.close();
+
+        List<Path> files = list();
+        assertThat(files).extracting(path -> path.getFileName().toString())
+                .containsExactly("20260101-000002-000-3-sample.png", "20260101-000003-000-4-sample.png");
+    }
+
+    private AmazonProperties properties(int maxDiskMb) {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getDiagnostics().setDirectory(directory.toString());
+        properties.getDiagnostics().setMaxDiskMb(maxDiskMb);
+        properties.getDiagnostics().setQueueCapacity(8);
+        return properties;
+    }
+
+    private List<Path> list() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
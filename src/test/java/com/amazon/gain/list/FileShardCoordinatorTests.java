@@ -0,0 +1,150 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileShardCoordinatorTests {
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock();
+    private AmazonProperties properties;
+    private FileShardCoordinator nodeA;
+    private FileShardCoordinator nodeB;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AmazonProperties();
+        properties.getShard().setDirectory(directory.toString());
+        properties.getShard().setLeaseSeconds(60);
+        properties.getShard().setRunId("2026-01-01");
+        nodeA = new FileShardCoordinator(properties, clock);
+        nodeB = new FileShardCoordinator(properties, clock);
+    }
+
+    @Test
+    void eachShardIsLeasedToOneNodeAtATime() {
+        nodeA.publish(List.of(new Shard("2005", 1), new Shard("2006", 1)));
+        nodeB.publish(List.of(new Shard("2005", 1)));
+
+        ShardLease first = nodeA.claim("a").orElseThrow();
+        ShardLease second = nodeB.claim("b").orElseThrow();
+
+        assertThat(first.shard()).isEqualTo(new Shard("2005", 1));
+        assertThat(second.shard()).isEqualTo(new Shard("2006", 1));
+        assertThat(nodeA.claim("a")).isEmpty();
+
+        assertThat(nodeA.remaining()).isEqualTo(2);
+        nodeA.complete(first);
+        assertThat(nodeA.isFinished()).isFalse();
+        assertThat(nodeB.remaining()).isEqualTo(1);
+        nodeB.complete(second);
+        assertThat(nodeA.isFinished()).isTrue();
+        assertThat(nodeA.remaining()).isZero();
+    }
+
+    @Test
+    void expiredLeasesAreReassignedAndHeartbeatsKeepThemAlive() {
+        nodeA.publish(List.of(new Shard("2005", 1)));
+        ShardLease lease = nodeA.claim("a").orElseThrow();
+
+        clock.advance(Duration.ofSeconds(45));
+        lease = nodeA.renew(lease).orElseThrow();
+        clock.advance(Duration.ofSeconds(45));
+        assertThat(nodeB.claim("b")).isEmpty();
+
+        clock.advance(Duration.ofSeconds(30));
+        Optional<ShardLease> takenOver = nodeB.claim("b");
+        assertThat(takenOver).map(ShardLease::nodeId).contains("b");
+        assertThat(nodeA.renew(lease)).isEmpty();
+
+        nodeA.complete(lease);
+        assertThat(nodeA.isFinished()).isFalse();
+        nodeB.complete(takenOver.get());
+        assertThat(nodeA.isFinished()).isTrue();
+    }
+
+    @Test
+    void releasedShardIsAvailableBeforeItsLeaseExpires() {
+        nodeA.publish(List.of(new Shard("2005", 1)));
+        ShardLease lease = nodeA.claim("a").orElseThrow();
+        assertThat(nodeB.claim("b")).isEmpty();
+
+        nodeA.release(lease);
+
+        assertThat(nodeB.claim("b")).map(ShardLease::shard).contains(new Shard("2005", 1));
+        assertThat(nodeA.renew(lease)).isEmpty();
+    }
+
+    @Test
+    void asinIsClaimedOnceAcrossNodes() {
+        nodeA.publish(List.of(new Shard("2005", 1), new Shard("2006", 1)));
+        ShardLease leaseA = nodeA.claim("a").orElseThrow();
+        ShardLease leaseB = nodeB.claim("b").orElseThrow();
+
+        assertThat(nodeA.claimAsin("B000123456", leaseA)).isTrue();
+        assertThat(nodeB.claimAsin("B000123456", leaseB)).isFalse();
+
+        nodeA.releaseAsin("B000123456", leaseA);
+        assertThat(nodeB.claimAsin("B000123456", leaseB)).isTrue();
+        nodeB.markAsinAdded("B000123456", leaseB);
+        nodeB.complete(leaseB);
+
+        assertThat(nodeA.claimAsin("B000123456", leaseA)).isFalse();
+    }
+
+    @Test
+    void pendingClaimsGoWithALostLease() {
+        nodeA.publish(List.of(new Shard("2005", 1)));
+        ShardLease lease = nodeA.claim("a").orElseThrow();
+        assertThat(nodeA.claimAsin("B000123456", lease)).isTrue();
+
+        clock.advance(Duration.ofSeconds(61));
+        assertThat(nodeA.claimAsin("B000654321", lease)).isFalse();
+        ShardLease takenOver = nodeB.claim("b").orElseThrow();
+
+        assertThat(nodeB.claimAsin("B000123456", takenOver)).isTrue();
+    }
+
+    @Test
+    void eachRunStartsFromItsOwnState() {
+        nodeA.publish(List.of(new Shard("2005", 1)));
+        nodeA.complete(nodeA.claim("a").orElseThrow());
+        assertThat(nodeA.isFinished()).isTrue();
+
+        properties.getShard().setRunId("2026-01-02");
+        FileShardCoordinator nextRun = new FileShardCoordinator(properties, clock);
+        assertThat(nextRun.isFinished()).isFalse();
+        nextRun.publish(List.of(new Shard("2005", 1)));
+        assertThat(nextRun.claim("a")).isPresent();
+    }
+
+    @Test
+    void runIdIsRequired() {
+        properties.getShard().setRunId(" ");
+
+        assertThatThrownBy(() -> nodeA.publish(List.of(new Shard("2005", 1))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("amazon.shard.run-id");
+    }
+
+    @Test
+    void runWithNoShardsIsFinishedOncePublished() {
+        assertThat(nodeA.isFinished()).isFalse();
+
+        nodeA.publish(List.of());
+
+        assertThat(nodeB.isFinished()).isTrue();
+        assertThat(nodeB.claim("b")).isEmpty();
+    }
+}
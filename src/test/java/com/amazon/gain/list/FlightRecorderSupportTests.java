@@ -0,0 +1,60 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecorderSupportTests {
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock();
+    private FlightRecorderSupport flightRecorder;
+
+    @AfterEach
+    void tearDown() {
+        if (flightRecorder != null) {
+            flightRecorder.stop();
+        }
+    }
+
+    @Test
+    void failuresInQuickSuccessionShareOneDump() {
+        flightRecorder = new FlightRecorderSupport(properties(true), clock);
+        flightRecorder.start();
+
+        assertThat(flightRecorder.dump("item_error_B000123456")).isTrue();
+        assertThat(flightRecorder.dump("order_error")).isFalse();
+        clock.advance(Duration.ofSeconds(61));
+        assertThat(flightRecorder.dump("year selection/2005")).isTrue();
+
+        assertThat(directory.resolve("item_error_B000123456-20260101-000000.jfr")).isNotEmptyFile();
+        assertThat(directory.resolve("year_selection_2005-20260101-000101.jfr")).isNotEmptyFile();
+    }
+
+    @Test
+    void nothingIsDumpedWhenDisabled() throws Exception {
+        flightRecorder = new FlightRecorderSupport(properties(false), clock);
+        flightRecorder.start();
+
+        assertThat(flightRecorder.dump("failed_load")).isFalse();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private AmazonProperties properties(boolean enabled) {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getFlightRecorder().setEnabled(enabled);
+        properties.getFlightRecorder().setDumpDirectory(directory.toString());
+        properties.getFlightRecorder().setMinDumpIntervalSeconds(60);
+        return properties;
+    }
+}
@@ -0,0 +1,89 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HumanInterventionServiceTests {
+
+    private final List<InterventionRequest> notifications = new ArrayList<>();
+
+    private HumanInterventionService newService() {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getIntervention().setTimeoutSeconds(5);
+        properties.getIntervention().setPollIntervalMillis(20);
+        return new HumanInterventionService(properties, notifications::add);
+    }
+
+    @Test
+    void returnsImmediatelyWhenNoChallengeIsShown() {
+        HumanInterventionService service = newService();
+
+        assertThat(service.awaitClearance("s1", ChallengeType.CAPTCHA, "url", () -> false)).isTrue();
+        assertThat(notifications).isEmpty();
+    }
+
+    @Test
+    void resumesOnceChallengeClears() throws Exception {
+        HumanInterventionService service = newService();
+        AtomicBoolean challengeShown = new AtomicBoolean(true);
+
+        CompletableFuture<Boolean> parked = CompletableFuture.supplyAsync(() ->
+                service.awaitClearance("s1", ChallengeType.CAPTCHA, "url", challengeShown::get));
+        Thread.sleep(100);
+        assertThat(parked).isNotDone();
+        challengeShown.set(false);
+
+        assertThat(parked.get(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(notifications).extracting(InterventionRequest::sessionId).containsExactly("s1");
+    }
+
+    @Test
+    void onlyTheResolvedSessionIsWokenUp() throws Exception {
+        HumanInterventionService service = newService();
+        AtomicBoolean firstShown = new AtomicBoolean(true);
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() ->
+                service.awaitClearance("s1", ChallengeType.SECURITY_CODE, "url", firstShown::get));
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() ->
+                service.awaitClearance("s2", ChallengeType.SECURITY_CODE, "url", () -> true));
+        Thread.sleep(100);
+
+        firstShown.set(false);
+        assertThat(service.resolve("s1")).isTrue();
+        assertThat(first.get(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(second).isNotDone();
+        assertThat(service.getParkedSessions()).containsExactly("s2");
+
+        assertThat(service.resolve("s2")).isTrue();
+        assertThat(second.get(2, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    void dropFileIsDeletedOnceTheSessionIsResolved(@TempDir Path directory) throws Exception {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getIntervention().setTimeoutSeconds(5);
+        properties.getIntervention().setPollIntervalMillis(20);
+        properties.getIntervention().setDropDirectory(directory.toString());
+        HumanInterventionService service = new HumanInterventionService(properties, new FileDropInterventionNotifier(properties));
+        Path dropFile = directory.resolve("s1-captcha.json");
+
+        CompletableFuture<Boolean> parked = CompletableFuture.supplyAsync(() ->
+                service.awaitClearance("s1", ChallengeType.CAPTCHA, "url", () -> true));
+        Thread.sleep(100);
+        assertThat(dropFile).exists();
+
+        assertThat(service.resolve("s1")).isTrue();
+        parked.get(2, TimeUnit.SECONDS);
+        assertThat(Files.exists(dropFile)).isFalse();
+    }
+}
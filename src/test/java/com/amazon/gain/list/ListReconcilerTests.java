@@ -0,0 +1,79 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListReconcilerTests {
+
+    @Test
+    void missingKeepsSubmissionOrderAndIgnoresOtherListItems() {
+        List<String> submitted = List.of("B000000003", "B000000001", "B000000002");
+        Set<String> onList = Set.of("B000000001", "B000000099");
+
+        assertThat(ListReconciler.missing(submitted, onList)).containsExactly("B000000003", "B000000002");
+    }
+
+    @Test
+    void nothingIsMissingWhenEverySubmissionIsOnTheList() {
+        assertThat(ListReconciler.missing(List.of("B000000001", "B000000001"), Set.of("B000000001"))).isEmpty();
+        assertThat(ListReconciler.missing(List.of(), Set.of("B000000001"))).isEmpty();
+    }
+
+    @Test
+    void readIsCompleteOnceTheEndMarkerShows() {
+        AtomicInteger batches = new AtomicInteger();
+        StubWebDriver driver = new StubWebDriver((tab, script) -> {
+            if (!script.contains("asins")) {
+                return Map.of("end", false, "rendered", 2L);
+            }
+            return batches.incrementAndGet() == 1
+                    ? Map.of("asins", List.of("B000000001"), "end", false, "rendered", 1L)
+                    : Map.of("asins", List.of("B000000001", "B000000002"), "end", true, "rendered", 2L);
+        });
+
+        ListReconciler.ListContents list = new ListReconciler(properties(200)).readList(driver, "http://localhost");
+
+        assertThat(list.complete()).isTrue();
+        assertThat(list.asins()).containsExactly("B000000001", "B000000002");
+        assertThat(driver.visited()).containsExactly("http://localhost/hz/wishlist/ls/LIST?viewType=list");
+    }
+
+    @Test
+    void readIsIncompleteWhenTheListStopsGrowing() {
+        StubWebDriver driver = new StubWebDriver((tab, script) -> script.contains("asins")
+                ? Map.of("asins", List.of("B000000001"), "end", false, "rendered", 1L)
+                : Map.of("end", false, "rendered", 1L));
+
+        ListReconciler.ListContents list = new ListReconciler(properties(200)).readList(driver, "http://localhost");
+
+        assertThat(list.complete()).isFalse();
+        assertThat(list.asins()).containsExactly("B000000001");
+    }
+
+    @Test
+    void readIsIncompleteWhenTheBatchCapIsHit() {
+        AtomicInteger rendered = new AtomicInteger();
+        StubWebDriver driver = new StubWebDriver((tab, script) -> script.contains("asins")
+                ? Map.of("asins", List.of("B00000000" + rendered.incrementAndGet()), "end", false, "rendered", (long) rendered.get())
+                : Map.of("end", false, "rendered", rendered.get() + 1L));
+
+        ListReconciler.ListContents list = new ListReconciler(properties(2)).readList(driver, "http://localhost");
+
+        assertThat(list.complete()).isFalse();
+        assertThat(list.asins()).containsExactly("B000000001", "B000000002");
+    }
+
+    private static AmazonProperties properties(int maxListPages) {
+        AmazonProperties properties = new AmazonProperties();
+        properties.setListId("LIST");
+        properties.getReconcile().setMaxListPages(maxListPages);
+        properties.getReconcile().setPageWaitSeconds(1);
+        return properties;
+    }
+}
@@ -0,0 +1,86 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NegativeAsinCacheTests {
+
+    @TempDir
+    Path directory;
+
+    private AmazonProperties properties() {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getNegativeCache().setFile(directory.resolve("negative.properties").toString());
+        properties.getNegativeCache().setTtlDays(7);
+        return properties;
+    }
+
+    @Test
+    void deadAsinsSurviveARestartUntilTheTtlRunsOut() {
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        AmazonProperties properties = properties();
+
+        NegativeAsinCache firstRun = new NegativeAsinCache(properties, Clock.fixed(start, ZoneOffset.UTC));
+        firstRun.markDead("B000123456", DeadProductReason.SORRY_PAGE);
+        assertThat(firstRun.isKnownDead("B000123456")).isTrue();
+        assertThat(firstRun.isKnownDead("B000000000")).isFalse();
+
+        NegativeAsinCache nextRun = new NegativeAsinCache(properties, Clock.fixed(start.plus(Duration.ofDays(6)), ZoneOffset.UTC));
+        assertThat(nextRun.isKnownDead("B000123456")).isTrue();
+
+        NegativeAsinCache muchLater = new NegativeAsinCache(properties, Clock.fixed(start.plus(Duration.ofDays(8)), ZoneOffset.UTC));
+        assertThat(muchLater.isKnownDead("B000123456")).isFalse();
+    }
+
+    @Test
+    void expiredEntriesAreDroppedFromTheFile() {
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        AmazonProperties properties = properties();
+        NegativeAsinCache firstRun = new NegativeAsinCache(properties, Clock.fixed(start, ZoneOffset.UTC));
+        firstRun.markDead("B000123456", DeadProductReason.SORRY_PAGE);
+        NegativeAsinCache laterRun = new NegativeAsinCache(properties, Clock.fixed(start.plus(Duration.ofDays(3)), ZoneOffset.UTC));
+        laterRun.markDead("B000654321", DeadProductReason.LISTING_REMOVED);
+
+        NegativeAsinCache muchLater = new NegativeAsinCache(properties, Clock.fixed(start.plus(Duration.ofDays(8)), ZoneOffset.UTC));
+        assertThat(muchLater.size()).isEqualTo(1);
+        assertThat(muchLater.isKnownDead("B000654321")).isTrue();
+
+        NegativeAsinCache reloaded = new NegativeAsinCache(properties, Clock.fixed(start.plus(Duration.ofDays(8)), ZoneOffset.UTC));
+        assertThat(reloaded.size()).isEqualTo(1);
+    }
+
+    @Test
+    void missingAddButtonIsOnlySkippedOnceSeenTwice() {
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        AmazonProperties properties = properties();
+
+        NegativeAsinCache firstRun = new NegativeAsinCache(properties, Clock.fixed(start, ZoneOffset.UTC));
+        firstRun.markDead("B000123456", DeadProductReason.NO_ADD_TO_LIST_BUTTON);
+        assertThat(firstRun.isKnownDead("B000123456")).isFalse();
+
+        NegativeAsinCache nextRun = new NegativeAsinCache(properties, Clock.fixed(start.plus(Duration.ofDays(1)), ZoneOffset.UTC));
+        assertThat(nextRun.isKnownDead("B000123456")).isFalse();
+        nextRun.markDead("B000123456", DeadProductReason.NO_ADD_TO_LIST_BUTTON);
+        assertThat(nextRun.isKnownDead("B000123456")).isTrue();
+    }
+
+    @Test
+    void disabledCacheRemembersNothing() {
+        AmazonProperties properties = properties();
+        properties.getNegativeCache().setEnabled(false);
+        NegativeAsinCache cache = new NegativeAsinCache(properties);
+
+        cache.markDead("B000123456", DeadProductReason.LISTING_REMOVED);
+
+        assertThat(cache.isKnownDead("B000123456")).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+}
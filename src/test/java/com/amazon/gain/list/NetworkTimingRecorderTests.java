@@ -0,0 +1,79 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.json.Json;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NetworkTimingRecorderTests {
+
+    @TempDir
+    Path directory;
+
+    private final Json json = new Json();
+
+    @Test
+    void eventsAreBookedAgainstTheNavigationInProgress() throws Exception {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getTiming().setEnabled(true);
+        properties.getTiming().setReportDirectory(directory.toString());
+        NetworkTimingRecorder recorder = new NetworkTimingRecorder(properties);
+        Path report = recorder.openReport();
+
+        recorder.beginNavigation("product", "2005", 1, "Widget");
+        recorder.onRequestWillBeSent(Map.of("requestId", "1", "timestamp", 100.0, "type", "Document",
+                "request", Map.of("url", "https://www.amazon.com/dp/B000123456")));
+        recorder.onRequestWillBeSent(Map.of("requestId", "2", "timestamp", 100.1, "type", "Image",
+                "request", Map.of("url", "https://m.media-amazon.com/images/widget.jpg")));
+        recorder.onResponseReceived(Map.of("requestId", "1", "response", Map.of("timing", Map.of(
+                "receiveHeadersEnd", 120.0, "dnsStart", 1.0, "dnsEnd", 6.0, "connectStart", 6.0, "connectEnd", 20.0))));
+        recorder.onPageEvent(Map.of("timestamp", 100.25), true);
+        recorder.onLoadingFinished(Map.of("requestId", "1", "timestamp", 100.3, "encodedDataLength", 1000));
+        recorder.onPageEvent(Map.of("timestamp", 100.4), false);
+        recorder.onLoadingFinished(Map.of("requestId", "2", "timestamp", 100.5, "encodedDataLength", 5000));
+        recorder.finish();
+
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(2);
+        Map<String, Object> navigation = json.toType(lines.get(0), Json.MAP_TYPE);
+        assertThat(navigation).containsEntry("action", "product").containsEntry("item", "Widget");
+        assertThat(number(navigation, "requests")).isEqualTo(2);
+        assertThat(number(navigation, "bytes")).isEqualTo(6000);
+        assertThat(number(navigation, "ttfbMs")).isEqualTo(120);
+        assertThat(number(navigation, "dnsMs")).isEqualTo(5);
+        assertThat(number(navigation, "connectMs")).isEqualTo(14);
+        assertThat(number(navigation, "domContentLoadedMs")).isEqualTo(250);
+        assertThat(number(navigation, "loadMs")).isEqualTo(400);
+        assertThat(number(navigation, "networkIdleMs")).isEqualTo(500);
+        assertThat(navigation.get("heaviestDomains").toString()).startsWith("[{domain=m.media-amazon.com");
+
+        Map<String, Object> summary = json.toType(lines.get(1), Json.MAP_TYPE);
+        assertThat(summary).containsEntry("summary", true);
+        assertThat(number(summary, "navigations")).isEqualTo(1);
+    }
+
+    @Test
+    void nothingIsRecordedBeforeTheReportIsOpen() {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getTiming().setReportDirectory(directory.toString());
+        NetworkTimingRecorder recorder = new NetworkTimingRecorder(properties);
+
+        recorder.beginNavigation("home", null, 0, null);
+        recorder.onRequestWillBeSent(Map.of("requestId", "1", "timestamp", 1.0,
+                "request", Map.of("url", "https://www.amazon.com/")));
+        recorder.finish();
+
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    private static long number(Map<String, Object> line, String key) {
+        return ((Number) line.get(key)).longValue();
+    }
+}
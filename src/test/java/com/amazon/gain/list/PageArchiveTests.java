@@ -0,0 +1,92 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageArchiveTests {
+
+    @TempDir
+    Path archiveDirectory;
+
+    @Test
+    void normalizeDropsHostRefSegmentsAndTrackingParameters() {
+        assertThat(PageArchive.normalize("https://www.amazon.com/dp/B000123456/ref=ppx_yo_dt?psc=1&ie=UTF8&qid=99"))
+                .isEqualTo("/dp/B000123456?ie=UTF8&psc=1");
+        assertThat(PageArchive.normalize("https://www.amazon.com")).isEqualTo("/");
+    }
+
+    @Test
+    void recordedPagesAreServedByTheReplayServer() throws Exception {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getArchive().setDirectory(archiveDirectory.toString());
+        properties.getArchive().setMode("record");
+
+        PageArchive recorder = new PageArchive(properties);
+        recorder.open(null);
+        recorder.record("https://www.amazon.com/your-orders/orders?timeFilter=year-2005",
+                "<html><script>track()</script><a href=\"https://www.amazon.com/dp/B000123456\">item</a></html>");
+        recorder.recordAlias(PageArchive.yearPath("2005"), "https://www.amazon.com/your-orders/orders?timeFilter=year-2005");
+        recorder.close();
+
+        properties.getArchive().setMode("replay");
+        PageArchive archive = new PageArchive(properties);
+        archive.open(null);
+        ReplayServer server = new ReplayServer(properties, archive);
+        try {
+            String baseUrl = server.start();
+            HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+
+            HttpResponse<byte[]> page = client.send(HttpRequest.newBuilder(URI.create(baseUrl + PageArchive.yearPath("2005"))).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            assertThat(page.statusCode()).isEqualTo(200);
+            String html = new String(new GZIPInputStream(new ByteArrayInputStream(page.body())).readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(html).isEqualTo("<html><a href=\"/dp/B000123456\">item</a></html>");
+
+            HttpResponse<Void> missing = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/dp/B000000000")).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            assertThat(missing.statusCode()).isEqualTo(404);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void stoppingTheReplayServerEndsItsThreads() throws Exception {
+        AmazonProperties properties = new AmazonProperties();
+        properties.getArchive().setDirectory(archiveDirectory.toString());
+        properties.getArchive().setMode("replay");
+        PageArchive archive = new PageArchive(properties);
+        archive.open(null);
+        ReplayServer server = new ReplayServer(properties, archive);
+        HttpClient client = HttpClient.newHttpClient();
+
+        for (int cycle = 0; cycle < 3; cycle++) {
+            String baseUrl = server.start();
+            client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/dp/B000000000")).build(), HttpResponse.BodyHandlers.discarding());
+            server.stop();
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (replayThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(replayThreads()).isZero();
+    }
+
+    private static long replayThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("replay-server") && thread.isAlive())
+                .count();
+    }
+}
@@ -0,0 +1,24 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductPrefetcherTests {
+
+    private static final long MB = 1024L * 1024L;
+
+    @Test
+    void depthIsCappedByTheTabsThatFitInMemory() {
+        assertThat(ProductPrefetcher.allowedDepth(3, 1024 * MB, 150 * MB)).isEqualTo(3);
+        // 600 MB holds four tabs of 150 MB, one of which is the tab in use
+        assertThat(ProductPrefetcher.allowedDepth(5, 600 * MB, 150 * MB)).isEqualTo(3);
+        assertThat(ProductPrefetcher.allowedDepth(3, 200 * MB, 150 * MB)).isZero();
+    }
+
+    @Test
+    void unknownTabSizeFallsBackToTheConfiguredDepth() {
+        assertThat(ProductPrefetcher.allowedDepth(2, 0, 0)).isEqualTo(2);
+        assertThat(ProductPrefetcher.allowedDepth(0, 1024 * MB, 150 * MB)).isZero();
+    }
+}
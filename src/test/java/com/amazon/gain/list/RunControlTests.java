@@ -0,0 +1,100 @@
+package com.amazon.gain.list;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunControlTests {
+
+    private final MutableClock clock = new MutableClock();
+    private final RunControl runControl = new RunControl(clock);
+
+    @Test
+    void etaCoversCurrentPageAndYearsNotStartedYet() {
+        runControl.start(1);
+        runControl.yearsPlanned(3);
+        runControl.yearStarted("2005");
+        for (int i = 0; i < 10; i++) {
+            runControl.itemDone(true);
+        }
+        runControl.yearFinished();
+        runControl.yearStarted("2006");
+        runControl.pageStarted("2006", 1, 5);
+        clock.advance(Duration.ofMinutes(5));
+
+        Map<String, Object> status = runControl.snapshot();
+
+        assertThat(status.get("itemsPerMinute")).isEqualTo(2.0);
+        // 5 queued plus one more year of 10 items, at 2 items per minute
+        assertThat(status.get("etaSeconds")).isEqualTo(450L);
+    }
+
+    @Test
+    void etaCountsShardsNotDoneYetWhenSharding() {
+        runControl.start(1);
+        runControl.shardStarted(new Shard("2005", 1), 4);
+        for (int i = 0; i < 10; i++) {
+            runControl.itemDone(true);
+        }
+        runControl.shardFinished();
+        runControl.shardStarted(new Shard("2005", 2), 2);
+        runControl.pageStarted("2005", 2, 4);
+        clock.advance(Duration.ofMinutes(5));
+
+        Map<String, Object> status = runControl.snapshot();
+
+        assertThat(status.get("shardsRemaining")).isEqualTo(2);
+        // 4 queued plus two more shards of 10 items, at 2 items per minute
+        assertThat(status.get("etaSeconds")).isEqualTo(720L);
+    }
+
+    @Test
+    void throttleDelaysItemsButNotPageChanges() {
+        runControl.start(1);
+        runControl.throttle(60_000L, null);
+
+        assertThat(runControl.awaitUnpaused()).isTrue();
+        runControl.cancel();
+        assertThat(runControl.awaitUnpaused()).isFalse();
+    }
+
+    @Test
+    void pausedTimeDoesNotCountAgainstThroughput() {
+        runControl.start(1);
+        runControl.itemDone(true);
+        clock.advance(Duration.ofMinutes(1));
+        runControl.pause();
+        clock.advance(Duration.ofMinutes(9));
+
+        assertThat(runControl.snapshot().get("itemsPerMinute")).isEqualTo(1.0);
+        assertThat(runControl.snapshot().get("state")).isEqualTo("PAUSED");
+    }
+
+    @Test
+    void pausedWorkersWaitAndCancelReleasesThem() throws Exception {
+        runControl.start(2);
+        runControl.pause();
+
+        CompletableFuture<Boolean> turn = CompletableFuture.supplyAsync(runControl::awaitTurn);
+        Thread.sleep(100);
+        assertThat(turn).isNotDone();
+
+        runControl.cancel();
+        assertThat(turn.get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    void workersAboveTheLimitStopWaitingWhenNoWorkIsLeft() throws Exception {
+        runControl.start(3);
+        runControl.throttle(null, 1);
+
+        assertThat(runControl.awaitTurn(0, () -> true)).isTrue();
+        assertThat(runControl.awaitTurn(2, () -> false)).isFalse();
+        assertThat(runControl.snapshot().get("workerLimit")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,157 @@
+package com.amazon.gain.list;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Just enough of a browser for tests: windows that can be opened and switched between, and
+ * scripts answered by a function of the current window and the script text. Everything else
+ * throws.
+ */
+class StubWebDriver implements WebDriver, JavascriptExecutor {
+    private final Set<String> handles = new LinkedHashSet<>(List.of("tab-0"));
+    private final BiFunction<String, String, Object> scripts;
+    private final List<String> visited = new ArrayList<>();
+    private String current = "tab-0";
+
+    StubWebDriver(BiFunction<String, String, Object> scripts) {
+        this.scripts = scripts;
+    }
+
+    List<String> visited() {
+        return visited;
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        return scripts.apply(current, script);
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void get(String url) {
+        visited.add(url);
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return current;
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return Set.copyOf(handles);
+    }
+
+    @Override
+    public void close() {
+        handles.remove(current);
+    }
+
+    @Override
+    public void quit() {
+        handles.clear();
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        return new TargetLocator() {
+            @Override
+            public WebDriver window(String nameOrHandle) {
+                current = nameOrHandle;
+                return StubWebDriver.this;
+            }
+
+            @Override
+            public WebDriver newWindow(WindowType typeHint) {
+                current = "tab-" + handles.size();
+                handles.add(current);
+                return StubWebDriver.this;
+            }
+
+            @Override
+            public WebDriver frame(int index) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebDriver frame(String nameOrId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebDriver frame(WebElement frameElement) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebDriver parentFrame() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebDriver defaultContent() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebElement activeElement() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Alert alert() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getTitle() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getPageSource() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Navigation navigate() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Options manage() {
+        throw new UnsupportedOperationException();
+    }
+}